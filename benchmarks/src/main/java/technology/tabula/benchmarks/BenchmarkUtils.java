@@ -0,0 +1,45 @@
+package technology.tabula.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import technology.tabula.ObjectExtractor;
+import technology.tabula.Page;
+
+/**
+ * Loads the PDFs used by the benchmarks from tabula's test resources.
+ *
+ * The resources directory can be overridden with the tabula.resources system
+ * property, by default it points to the main project's src/test/resources.
+ */
+public class BenchmarkUtils {
+
+    private static final String RESOURCES_PATH = System.getProperty("tabula.resources",
+            "../src/test/resources/technology/tabula");
+
+    public static File resource(String path) {
+        File file = new File(RESOURCES_PATH, path);
+        if (!file.exists()) {
+            throw new IllegalArgumentException("Benchmark document not found: " + file.getAbsolutePath());
+        }
+        return file;
+    }
+
+    public static PDDocument loadDocument(String path) throws IOException {
+        return PDDocument.load(resource(path));
+    }
+
+    public static Page getPage(String path, int pageNumber) throws IOException {
+        ObjectExtractor oe = null;
+        try {
+            oe = new ObjectExtractor(loadDocument(path));
+            return oe.extract(pageNumber);
+        } finally {
+            if (oe != null)
+                oe.close();
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package technology.tabula.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import technology.tabula.ObjectExtractor;
+import technology.tabula.Page;
+import technology.tabula.Rectangle;
+import technology.tabula.detectors.NurminenDetectionAlgorithm;
+
+/**
+ * Table detection used by guess mode: NurminenDetectionAlgorithm.detect
+ *
+ * detect() rewrites the content stream of the page it renders, so the document
+ * is loaded again and a fresh Page is extracted (outside of the measurement)
+ * for every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetectionBenchmark {
+
+    @Param({
+        "icdar2013-dataset/competition-dataset-eu/eu-001.pdf",
+        "icdar2013-dataset/competition-dataset-us/us-001.pdf"
+    })
+    public String document;
+
+    private ObjectExtractor oe;
+    private Page page;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        this.oe = new ObjectExtractor(BenchmarkUtils.loadDocument(this.document));
+        this.page = this.oe.extract(1);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws IOException {
+        this.oe.close();
+    }
+
+    @Benchmark
+    public List<Rectangle> detect() {
+        return new NurminenDetectionAlgorithm().detect(this.page);
+    }
+
+}
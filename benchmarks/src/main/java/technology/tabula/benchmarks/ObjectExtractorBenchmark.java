@@ -0,0 +1,62 @@
+package technology.tabula.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import technology.tabula.ObjectExtractor;
+import technology.tabula.Page;
+
+/**
+ * Content stream interpretation: ObjectExtractor.extractPage
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectExtractorBenchmark {
+
+    @Param({
+        "icdar2013-dataset/competition-dataset-eu/eu-001.pdf",
+        "icdar2013-dataset/competition-dataset-us/us-001.pdf",
+        "us-017.pdf",
+        "schools.pdf"
+    })
+    public String document;
+
+    private PDDocument pdfDocument;
+    private ObjectExtractor oe;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.pdfDocument = BenchmarkUtils.loadDocument(this.document);
+        this.oe = new ObjectExtractor(this.pdfDocument);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.oe.close();
+    }
+
+    @Benchmark
+    public Page extractPage() {
+        return this.oe.extract(1);
+    }
+
+}
@@ -0,0 +1,67 @@
+package technology.tabula.benchmarks;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import technology.tabula.Cell;
+import technology.tabula.Page;
+import technology.tabula.Ruling;
+import technology.tabula.extractors.SpreadsheetExtractionAlgorithm;
+
+/**
+ * Ruling based cell discovery: Ruling.findIntersections and
+ * SpreadsheetExtractionAlgorithm.findCells
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RulingBenchmark {
+
+    @Param({
+        "icdar2013-dataset/competition-dataset-eu/eu-004.pdf",
+        "icdar2013-dataset/competition-dataset-us/us-001.pdf",
+        "spreadsheet_no_bounding_frame.pdf",
+        "schools.pdf"
+    })
+    public String document;
+
+    private List<Ruling> horizontalRulings;
+    private List<Ruling> verticalRulings;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Page page = BenchmarkUtils.getPage(this.document, 1);
+        this.horizontalRulings = page.getHorizontalRulings();
+        this.verticalRulings = page.getVerticalRulings();
+    }
+
+    @Benchmark
+    public Map<Point2D, Ruling[]> findIntersections() {
+        return Ruling.findIntersections(this.horizontalRulings, this.verticalRulings);
+    }
+
+    @Benchmark
+    public List<Cell> findCells() {
+        return SpreadsheetExtractionAlgorithm.findCells(this.horizontalRulings, this.verticalRulings);
+    }
+
+}
@@ -0,0 +1,67 @@
+package technology.tabula.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import technology.tabula.Line;
+import technology.tabula.Page;
+import technology.tabula.TextChunk;
+import technology.tabula.TextElement;
+
+/**
+ * Word and line grouping: TextElement.mergeWords and TextChunk.groupByLines
+ *
+ * Both methods modify the list they receive, so every invocation works on a copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextBenchmark {
+
+    @Param({
+        "icdar2013-dataset/competition-dataset-eu/eu-001.pdf",
+        "icdar2013-dataset/competition-dataset-us/us-001.pdf",
+        "argentina_diputados_voting_record.pdf",
+        "us-017.pdf"
+    })
+    public String document;
+
+    private Page page;
+    private List<TextChunk> textChunks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.page = BenchmarkUtils.getPage(this.document, 1);
+        this.textChunks = TextElement.mergeWords(new ArrayList<TextElement>(this.page.getText()));
+    }
+
+    @Benchmark
+    public List<TextChunk> mergeWords() {
+        return TextElement.mergeWords(new ArrayList<TextElement>(this.page.getText()),
+                this.page.getVerticalRulings());
+    }
+
+    @Benchmark
+    public List<Line> groupByLines() {
+        return TextChunk.groupByLines(new ArrayList<TextChunk>(this.textChunks));
+    }
+
+}
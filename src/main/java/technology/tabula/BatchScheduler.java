@@ -0,0 +1,118 @@
+package technology.tabula;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs a task for each of a list of files on a fixed number of workers.
+ *
+ * Each file is expected to need memory in proportion to its size, and files
+ * are only started while the memory they need together fits in a budget
+ * (a file larger than the whole budget runs alone). Files are started in
+ * order, but a file that doesn't fit yet is passed by the smaller ones after
+ * it, so a few huge documents don't leave the other workers idle.
+ */
+class BatchScheduler {
+
+    /**
+     * Bytes of heap that a document is expected to need per byte of file
+     */
+    static final int MEMORY_PER_BYTE = 4;
+
+    interface Task {
+        void run(File file) throws Exception;
+    }
+
+    private final int workers;
+    private final long memoryBudget;
+
+    private final Object lock = new Object();
+    private int running = 0;
+    private long memoryInUse = 0;
+
+    BatchScheduler(int workers, long memoryBudget) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be greater than 0");
+        }
+        this.workers = workers;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Runs task for every file and waits for all of them
+     *
+     * @return the exceptions thrown by task, by file, in the order of files
+     */
+    Map<File, Exception> run(List<File> files, final Task task) throws InterruptedException {
+        final Map<File, Exception> failures = new LinkedHashMap<File, Exception>();
+        LinkedList<File> pending = new LinkedList<File>(files);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.workers, Math.max(files.size(), 1)));
+
+        try {
+            synchronized (this.lock) {
+                while (!pending.isEmpty() || this.running > 0) {
+                    Iterator<File> it = pending.iterator();
+                    while (this.running < this.workers && it.hasNext()) {
+                        final File file = it.next();
+                        final long memory = this.memoryFor(file);
+                        if (this.running > 0 && this.memoryInUse + memory > this.memoryBudget) {
+                            continue;
+                        }
+                        it.remove();
+                        this.running++;
+                        this.memoryInUse += memory;
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                Exception failure = null;
+                                try {
+                                    task.run(file);
+                                } catch (Exception e) {
+                                    failure = e;
+                                } catch (Error e) {
+                                    // an OutOfMemoryError, for instance: the memory of the
+                                    // failed document is free again, the others can go on
+                                    failure = new RuntimeException(e.toString(), e);
+                                } finally {
+                                    synchronized (lock) {
+                                        if (failure != null) {
+                                            failures.put(file, failure);
+                                        }
+                                        running--;
+                                        memoryInUse -= memory;
+                                        lock.notifyAll();
+                                    }
+                                }
+                            }
+                        });
+                    }
+                    if (this.running > 0) {
+                        this.lock.wait();
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // in the order of files
+        Map<File, Exception> rv = new LinkedHashMap<File, Exception>();
+        for (File file: files) {
+            if (failures.containsKey(file)) {
+                rv.put(file, failures.get(file));
+            }
+        }
+        return rv;
+    }
+
+    private long memoryFor(File file) {
+        return Math.min(file.length() * MEMORY_PER_BYTE, this.memoryBudget);
+    }
+
+}
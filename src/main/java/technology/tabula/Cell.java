@@ -31,20 +31,44 @@ public class Cell extends RectangularTextContainer<TextChunk> {
             return "";
         }
         StringBuilder sb = new StringBuilder();
+        this.appendText(sb, useLineReturns);
+        return sb.toString();
+    }
+
+    public String getText() {
+        return getText(true);
+    }
+
+    @Override
+    public void appendText(StringBuilder sb) {
+        this.appendText(sb, true);
+    }
+
+    // appends the text of the chunks, trimmed as by String.trim
+    private void appendText(StringBuilder sb, boolean useLineReturns) {
+        if (this.textElements.size() == 0) {
+            return;
+        }
+        int start = sb.length();
         Collections.sort(this.textElements);
         double curTop = this.textElements.get(0).getTop();
         for (TextChunk tc: this.textElements) {
             if (useLineReturns && tc.getTop() > curTop) {
                 sb.append('\r');
             }
-            sb.append(tc.getText());
+            tc.appendText(sb);
             curTop = tc.getTop();
         }
-        return sb.toString().trim();
-    }
-
-    public String getText() {
-        return getText(true);
+        int end = sb.length();
+        while (end > start && sb.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        sb.setLength(end);
+        int first = start;
+        while (first < end && sb.charAt(first) <= ' ') {
+            first++;
+        }
+        sb.delete(start, first);
     }
 
     public boolean isSpanning() {
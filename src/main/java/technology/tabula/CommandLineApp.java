@@ -1,13 +1,25 @@
 package technology.tabula;
 
 import java.awt.geom.Point2D;
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -28,14 +40,20 @@ import technology.tabula.writers.JSONWriter;
 import technology.tabula.writers.TSVWriter;
 import technology.tabula.writers.Writer;
 
+import com.google.gson.Gson;
+
 
 public class CommandLineApp {
 
     private static String VERSION = "0.9.0";
     private static String VERSION_STRING = String.format("tabula %s (c) 2012-2016 Manuel Aristarán", VERSION);
     private static String BANNER = "\nTabula helps you extract tables from PDFs\n\n";
+    private static final long PAGE_CACHE_SIZE = 512L * 1024 * 1024;
 
     private Appendable defaultOutput;
+    // shared by the jobs of an ExtractionServer, created for every call to extractTables otherwise
+    private ExecutorService detectionExecutor;
+    private Map<File, PageCache> pageCaches;
 
     public static void main(String[] args) {
         CommandLineParser parser = new GnuParser();
@@ -53,8 +71,13 @@ public class CommandLineApp {
                 System.exit(0);
             }
 
-            if (line.getArgs().length != 1) {
-                throw new ParseException("Need one filename\nTry --help for help");
+            if (line.hasOption("serve")) {
+                serve(line.getOptionValue("serve"));
+                System.exit(0);
+            }
+
+            if (line.getArgs().length == 0) {
+                throw new ParseException("Need at least one filename\nTry --help for help");
             }
 
             new CommandLineApp(System.out).extractTables(line);
@@ -71,78 +94,232 @@ public class CommandLineApp {
 		this.defaultOutput = defaultOutput;
 	}
 
+    /**
+     * @param detectionExecutor used for guess mode and not shut down, instead of a pool per call
+     * @param pageCaches open page caches by directory, new ones are added to it
+     */
+    CommandLineApp(Appendable defaultOutput, ExecutorService detectionExecutor, Map<File, PageCache> pageCaches) {
+        this.defaultOutput = defaultOutput;
+        this.detectionExecutor = detectionExecutor;
+        this.pageCaches = pageCaches;
+    }
+
+    private static void serve(String port) throws ParseException {
+        ExtractionServer server = new ExtractionServer();
+        try {
+            if (port == null) {
+                server.serve(System.in, System.out);
+            }
+            else {
+                server.listen(Integer.parseInt(port));
+            }
+        } catch (NumberFormatException e) {
+            throw new ParseException("Wrong port number " + port);
+        } catch (IOException e) {
+            throw new ParseException(e.getMessage());
+        } finally {
+            server.close();
+        }
+    }
+
     public void extractTables(CommandLine line) throws ParseException {
-        File pdfFile = new File(line.getArgs()[0]);
+        String[] args = line.getArgs();
+        if (line.hasOption("outdir") || args.length != 1 || isBatchInput(args[0])) {
+            this.extractBatch(line);
+            return;
+        }
+
+        File pdfFile = new File(args[0]);
         if (!pdfFile.exists()) {
             throw new ParseException("File does not exist");
         }
+        ExtractionSettings settings = new ExtractionSettings(line);
 
-        OutputFormat of = OutputFormat.CSV;
-        if (line.hasOption('f')) {
-            try {
-                of = OutputFormat.valueOf(line.getOptionValue('f'));
+        Appendable outFile = this.defaultOutput;
+        if (line.hasOption('o')) {
+            outFile = createOutputFile(new File(line.getOptionValue('o')));
+        }
+
+        try {
+            this.extractFile(pdfFile, settings, outFile, null);
+            if (outFile instanceof Closeable && outFile != this.defaultOutput) {
+                ((Closeable) outFile).close();
             }
-            catch (IllegalArgumentException e) {
-                throw new ParseException(String.format(
-                        "format %s is illegal. Available formats: %s",
-                        line.getOptionValue('f'),
-                        Utils.join(",", OutputFormat.formatNames())));
+            else if (outFile instanceof Flushable) {
+                ((Flushable) outFile).flush();
             }
+        } catch (IOException e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
+    /**
+     * Extracts several PDFs concurrently, into one output file per PDF
+     * (--outdir) or into one output where every table is tagged with its
+     * file and page
+     */
+    private void extractBatch(CommandLine line) throws ParseException {
+        final ExtractionSettings settings = new ExtractionSettings(line);
+        List<File> pdfFiles;
+        try {
+            pdfFiles = expandInputs(Arrays.asList(line.getArgs()));
+        } catch (IOException e) {
+            throw new ParseException(e.getMessage());
+        }
+        if (pdfFiles.isEmpty()) {
+            throw new ParseException("No PDF files found");
+        }
+
+        int workers = Runtime.getRuntime().availableProcessors();
+        if (line.hasOption("workers")) {
+            workers = parseInt(line.getOptionValue("workers"), "workers");
+        }
+        long memoryBudget = Runtime.getRuntime().maxMemory() / 2;
+        if (line.hasOption("batch-memory")) {
+            memoryBudget = parseInt(line.getOptionValue("batch-memory"), "batch-memory") * 1024L * 1024L;
+        }
 
+        final File outputDirectory = line.hasOption("outdir") ? new File(line.getOptionValue("outdir")) : null;
+        if (outputDirectory != null && !outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new ParseException("Cannot create directory " + outputDirectory);
+        }
+        final Map<File, File> outputFiles;
+        try {
+            outputFiles = outputDirectory == null ? null : outputFiles(outputDirectory, pdfFiles, settings.format);
+        } catch (IOException e) {
+            throw new ParseException(e.getMessage());
         }
 
         Appendable outFile = this.defaultOutput;
-        if (line.hasOption('o')) {
-            File file = new File(line.getOptionValue('o'));
+        if (outputDirectory == null && line.hasOption('o')) {
+            outFile = createOutputFile(new File(line.getOptionValue('o')));
+        }
+        final TaggedOutput tagged = outputDirectory == null ? new TaggedOutput(outFile, settings.format) : null;
+
+        // the documents share a pool for guess mode and the page cache
+        boolean ownsExecutor = this.detectionExecutor == null && settings.guess;
+        final CommandLineApp worker = new CommandLineApp(this.defaultOutput,
+                ownsExecutor ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()) : this.detectionExecutor,
+                this.pageCaches == null ? new HashMap<File, PageCache>() : this.pageCaches);
 
-            try {
-                file.createNewFile();
-                outFile = new BufferedWriter(new FileWriter(
-                        file.getAbsoluteFile()));
-            } catch (IOException e) {
-                throw new ParseException("Cannot create file "
-                        + line.getOptionValue('o'));
+        Map<File, Exception> failures;
+        try {
+            if (tagged != null) {
+                tagged.begin();
+            }
+            failures = new BatchScheduler(workers, memoryBudget).run(pdfFiles, new BatchScheduler.Task() {
+                @Override
+                public void run(File pdfFile) throws Exception {
+                    if (!pdfFile.isFile()) {
+                        throw new ParseException("File does not exist");
+                    }
+                    if (tagged != null) {
+                        worker.extractFile(pdfFile, settings, null, tagged);
+                        return;
+                    }
+                    File outputFile = outputFiles.get(pdfFile);
+                    outputFile.getParentFile().mkdirs();
+                    Appendable out = createOutputFile(outputFile);
+                    try {
+                        worker.extractFile(pdfFile, settings, out, null);
+                    } finally {
+                        ((Closeable) out).close();
+                    }
+                }
+            });
+            if (tagged != null) {
+                tagged.end();
+            }
+            if (outFile instanceof Closeable && outFile != this.defaultOutput) {
+                ((Closeable) outFile).close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParseException("Interrupted");
+        } catch (IOException e) {
+            throw new ParseException(e.getMessage());
+        } finally {
+            if (ownsExecutor) {
+                worker.detectionExecutor.shutdown();
             }
         }
 
-        Rectangle area = null;
-        if (line.hasOption('a')) {
-            List<Float> f = parseFloatList(line.getOptionValue('a'));
-            if (f.size() != 4) {
-                throw new ParseException("area parameters must be top,left,bottom,right");
+        if (!failures.isEmpty()) {
+            for (Map.Entry<File, Exception> failure: failures.entrySet()) {
+                System.err.println(failure.getKey() + ": " + failure.getValue().getMessage());
             }
-            area = new Rectangle(f.get(0), f.get(1), f.get(3) - f.get(1), f.get(2) - f.get(0));
+            throw new ParseException(String.format("%d of %d files failed", failures.size(), pdfFiles.size()));
         }
+    }
 
-        List<Float> verticalRulingPositions = null;
-        if (line.hasOption('c')) {
-            verticalRulingPositions = parseFloatList(line.getOptionValue('c'));
+    /**
+     * The pages that may have tables, going by a PageScreener
+     */
+    private static List<Integer> screenPages(ObjectExtractor oe, List<Integer> pages) {
+        PageScreener screener = new PageScreener();
+        List<Integer> rv = new ArrayList<Integer>();
+        for (Integer pageNumber: pages) {
+            // pages that don't exist fail when they're extracted
+            if (pageNumber >= 1 && pageNumber <= oe.getPageCount()) {
+                try {
+                    if (screener.score(oe.getPDPage(pageNumber)) < PageScreener.DEFAULT_THRESHOLD) {
+                        continue;
+                    }
+                } catch (IOException e) {
+                    // extract the pages that can't be screened
+                }
+            }
+            rv.add(pageNumber);
         }
+        return rv;
+    }
 
-        String pagesOption = line.hasOption('p') ? line.getOptionValue('p') : "1";
-        List<Integer> pages = Utils.parsePagesOption(pagesOption);
-        ExtractionMethod method = whichExtractionMethod(line);
-        boolean useLineReturns = line.hasOption('u');
+    /**
+     * Extracts the tables of pdfFile and writes them to out, or to tagged if it isn't null
+     */
+    private void extractFile(File pdfFile, ExtractionSettings settings, Appendable out, TaggedOutput tagged)
+            throws ParseException, IOException {
+        // guess mode scans every rendered page for edges, in parallel bands
+        ExecutorService detectionExecutor = this.detectionExecutor;
+        boolean ownsExecutor = detectionExecutor == null && settings.guess;
+        if (ownsExecutor) {
+            detectionExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+        ExtractionMethod method = settings.method;
+        PDDocument pdfDocument = null;
 
         try {
 
-            PDDocument pdfDocument = PDDocument.load(pdfFile);
+            pdfDocument = PDDocument.load(pdfFile);
 
-            ObjectExtractor oe = line.hasOption('s') ?
-                    new ObjectExtractor(pdfDocument, line.getOptionValue('s')) :
-                    new ObjectExtractor(pdfDocument);
+            PageCache pageCache = settings.cacheDirectory != null ? this.pageCache(settings.cacheDirectory) : null;
+            ObjectExtractor oe = new ObjectExtractor(pdfDocument, settings.password, true, false, pageCache);
             BasicExtractionAlgorithm basicExtractor = new BasicExtractionAlgorithm();
             SpreadsheetExtractionAlgorithm spreadsheetExtractor = new SpreadsheetExtractionAlgorithm();
+            DetectionAlgorithm detector = new NurminenDetectionAlgorithm(detectionExecutor);
 
+            List<Integer> pages = settings.pages;
+            if (settings.skipProse) {
+                pages = screenPages(oe, pages == null ? Utils.range(1, oe.getPageCount() + 1) : pages);
+            }
             PageIterator pageIterator = pages == null ? oe.extract() : oe.extract(pages);
             Page page;
-            List<Table> tables = new ArrayList<Table>();
+            Writer writer = createWriter(settings.format);
+            boolean firstTable = true;
+
+            // tables are written as soon as each page is processed, so we
+            // don't hold on to every Page (referenced by its Tables) until the end
+            if (tagged == null && settings.format == OutputFormat.JSON) {
+                out.append('[');
+            }
 
             while (pageIterator.hasNext()) {
                 page = pageIterator.next();
+                List<Table> tables = new ArrayList<Table>();
+                int pageNumber = page.getPageNumber();
 
-                if (area != null) {
-                    page = page.getArea(area);
+                if (settings.area != null) {
+                    page = page.getArea(settings.area);
 
                 }
 
@@ -152,10 +329,9 @@ public class CommandLineApp {
 
                 switch(method) {
                 case BASIC:
-                    if (line.hasOption('g')) {
+                    if (settings.guess) {
                         // guess the page areas to extract using a detection algorithm
                         // currently we only have a detector that uses spreadsheets to find table areas
-                        DetectionAlgorithm detector = new NurminenDetectionAlgorithm();
                         List<Rectangle> guesses = detector.detect(page);
 
                         for (Rectangle guessRect : guesses) {
@@ -163,7 +339,7 @@ public class CommandLineApp {
                             tables.addAll(basicExtractor.extract(guess));
                         }
                     } else {
-                        tables.addAll(verticalRulingPositions == null ? basicExtractor.extract(page) : basicExtractor.extract(page, verticalRulingPositions));
+                        tables.addAll(settings.verticalRulingPositions == null ? basicExtractor.extract(page) : basicExtractor.extract(page, settings.verticalRulingPositions));
                     }
 
                     break;
@@ -173,17 +349,243 @@ public class CommandLineApp {
                 default:
                     break;
                 }
+
+                if (tagged != null) {
+                    tagged.write(pdfFile.getPath(), pageNumber, tables);
+                    continue;
+                }
+                for (Table table: tables) {
+                    if (settings.format == OutputFormat.JSON && !firstTable) {
+                        out.append(',');
+                    }
+                    writer.write(out, table);
+                    firstTable = false;
+                }
+                if (out instanceof Flushable) {
+                    ((Flushable) out).flush();
+                }
             }
-            writeTables(of, tables, outFile);
 
+            if (tagged == null && settings.format == OutputFormat.JSON) {
+                out.append(']');
+            }
+
+        } finally {
+            if (ownsExecutor) {
+                detectionExecutor.shutdown();
+            }
+            if (pdfDocument != null) {
+                try {
+                    pdfDocument.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+    }
+
+    private static boolean isBatchInput(String arg) {
+        return arg.startsWith("@") || isGlob(arg) || new File(arg).isDirectory();
+    }
+
+    private static boolean isGlob(String arg) {
+        return arg.indexOf('*') >= 0 || arg.indexOf('?') >= 0;
+    }
+
+    /**
+     * The PDF files named by args: files, directories (searched recursively
+     * for .pdf files), glob patterns (* and ? within a name, ** for any
+     * number of directories) and @lists (files with one of these per line).
+     * Files that don't exist are kept, so that they are reported as failed.
+     */
+    static List<File> expandInputs(List<String> args) throws IOException {
+        List<File> rv = new ArrayList<File>();
+        for (String arg: args) {
+            if (arg.startsWith("@")) {
+                List<String> lines = new ArrayList<String>();
+                BufferedReader reader = new BufferedReader(new FileReader(arg.substring(1)));
+                try {
+                    String l;
+                    while ((l = reader.readLine()) != null) {
+                        if (l.trim().length() > 0) {
+                            lines.add(l.trim());
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+                rv.addAll(expandInputs(lines));
+            }
+            else if (isGlob(arg)) {
+                rv.addAll(glob(arg));
+            }
+            else if (new File(arg).isDirectory()) {
+                collectPDFs(new File(arg), rv);
+            }
+            else {
+                rv.add(new File(arg));
+            }
+        }
+        return rv;
+    }
 
+    private static List<File> glob(String pattern) {
+        // walk from the directories before the first wildcard
+        String[] parts = pattern.replace('\\', '/').split("/", -1);
+        StringBuilder base = new StringBuilder();
+        int first = 0;
+        while (first < parts.length - 1 && !isGlob(parts[first])) {
+            base.append(parts[first]).append('/');
+            first++;
+        }
+        StringBuilder regex = new StringBuilder();
+        for (int i = first; i < parts.length; i++) {
+            if (parts[i].equals("**") && i == parts.length - 1) {
+                regex.append(".*");
+            }
+            else if (parts[i].equals("**")) {
+                regex.append("(?:[^/]*/)*");
+                continue;
+            }
+            for (char c: parts[i].toCharArray()) {
+                if (c == '*') {
+                    regex.append("[^/]*");
+                }
+                else if (c == '?') {
+                    regex.append("[^/]");
+                }
+                else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            if (i < parts.length - 1) {
+                regex.append('/');
+            }
+        }
+
+        List<File> rv = new ArrayList<File>();
+        File directory = new File(base.length() == 0 ? "." : base.toString());
+        collectMatches(directory, base.toString(), "", Pattern.compile(regex.toString()), rv);
+        return rv;
+    }
+
+    private static void collectMatches(File directory, String base, String relative, Pattern pattern, List<File> rv) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child: children) {
+            String path = relative + child.getName();
+            if (child.isDirectory()) {
+                collectMatches(child, base, path + "/", pattern, rv);
+            }
+            else if (pattern.matcher(path).matches()) {
+                rv.add(new File(base + path));
+            }
+        }
+    }
+
+    private static void collectPDFs(File directory, List<File> rv) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child: children) {
+            if (child.isDirectory()) {
+                collectPDFs(child, rv);
+            }
+            else if (child.getName().toLowerCase().endsWith(".pdf")) {
+                rv.add(child);
+            }
+        }
+    }
+
+    /**
+     * The output file of every PDF in directory: the name of the PDF with the
+     * extension of format or, if some PDFs have the same name, their paths
+     * from the directory they all are in, so that no two PDFs write to the
+     * same file
+     */
+    static Map<File, File> outputFiles(File directory, List<File> pdfFiles, OutputFormat format) throws IOException, ParseException {
+        List<File> canonical = new ArrayList<File>(pdfFiles.size());
+        Set<String> names = new HashSet<String>();
+        boolean sameNames = false;
+        for (File pdfFile: pdfFiles) {
+            canonical.add(pdfFile.getCanonicalFile());
+            sameNames |= !names.add(pdfFile.getName().toLowerCase());
+        }
+
+        String common = null;
+        if (sameNames) {
+            for (File pdfFile: canonical) {
+                String parent = pdfFile.getParent() + File.separator;
+                if (common == null) {
+                    common = parent;
+                }
+                while (!parent.startsWith(common)) {
+                    // up to the separator before the last one
+                    common = common.substring(0, common.lastIndexOf(File.separatorChar, common.length() - 2) + 1);
+                }
+            }
+        }
+
+        Map<File, File> rv = new HashMap<File, File>();
+        Map<String, File> outputs = new HashMap<String, File>();
+        for (int i = 0; i < pdfFiles.size(); i++) {
+            String name = common == null ? canonical.get(i).getName() : canonical.get(i).getPath().substring(common.length());
+            if (name.toLowerCase().endsWith(".pdf")) {
+                name = name.substring(0, name.length() - 4);
+            }
+            File output = new File(directory, name + "." + format.name().toLowerCase());
+            File previous = outputs.put(output.getPath().toLowerCase(), pdfFiles.get(i));
+            if (previous != null) {
+                throw new ParseException(previous + " and " + pdfFiles.get(i) + " would both be written to " + output);
+            }
+            rv.put(pdfFiles.get(i), output);
+        }
+        return rv;
+    }
+
+    private static Appendable createOutputFile(File file) throws ParseException {
+        try {
+            file.createNewFile();
+            return new BufferedWriter(new FileWriter(file.getAbsoluteFile()));
         } catch (IOException e) {
-            throw new ParseException(e.getMessage());
+            throw new ParseException("Cannot create file " + file.getPath());
         }
+    }
 
+    private static int parseInt(String value, String option) throws ParseException {
+        try {
+            int rv = Integer.parseInt(value);
+            if (rv > 0) {
+                return rv;
+            }
+        } catch (NumberFormatException e) {
+            // same error as a number out of range
+        }
+        throw new ParseException(option + " must be a positive number");
     }
 
-    private void writeTables(OutputFormat format, List<Table> tables, Appendable out) throws IOException {
+    private PageCache pageCache(File directory) throws IOException {
+        if (this.pageCaches == null) {
+            return new PageCache(directory, PAGE_CACHE_SIZE);
+        }
+        synchronized (this.pageCaches) {
+            File key = directory.getCanonicalFile();
+            PageCache rv = this.pageCaches.get(key);
+            if (rv == null) {
+                rv = new PageCache(key, PAGE_CACHE_SIZE);
+                this.pageCaches.put(key, rv);
+            }
+            return rv;
+        }
+    }
+
+    private Writer createWriter(OutputFormat format) {
         Writer writer = null;
         switch (format) {
         case CSV:
@@ -192,14 +594,17 @@ public class CommandLineApp {
         case JSON:
             writer = new JSONWriter();
             break;
+        case NDJSON:
+            writer = new JSONWriter(true);
+            break;
         case TSV:
             writer = new TSVWriter();
             break;
         }
-        writer.write(out, tables);
+        return writer;
     }
 
-    private ExtractionMethod whichExtractionMethod(CommandLine line) {
+    private static ExtractionMethod whichExtractionMethod(CommandLine line) {
         ExtractionMethod rv = ExtractionMethod.DECIDE;
         if (line.hasOption('r')) {
             rv = ExtractionMethod.SPREADSHEET;
@@ -273,14 +678,165 @@ public class CommandLineApp {
                                  .hasArg()
                                  .withArgName("PAGES")
                                  .create("p"));
+        o.addOption(OptionBuilder.withLongOpt("cache-dir")
+                                 .withDescription("Cache extracted pages in <directory>, so later runs on the same PDF don't parse them again.")
+                                 .hasArg()
+                                 .withArgName("DIRECTORY")
+                                 .create());
+        o.addOption(OptionBuilder.withLongOpt("skip-prose")
+                                 .withDescription("Skip the pages that look like running text rather than tables, going by a quick look at their content, without extracting them. Useful with --pages all on long reports.")
+                                 .create());
+        o.addOption(OptionBuilder.withLongOpt("serve")
+                                 .withDescription("Keep running and extract the jobs read from STDIN, or from connections to localhost:<port> if given. Each job is a line with a JSON array of the arguments of a tabula command.")
+                                 .hasOptionalArg()
+                                 .withArgName("PORT")
+                                 .create());
+        o.addOption(OptionBuilder.withLongOpt("outdir")
+                                 .withDescription("Write the output of each PDF to a file in <directory>, named after the PDF (and its directory, if several PDFs have the same name). Default is one output for all of them, where every row (or JSON page object) starts with the file and page it comes from.")
+                                 .hasArg()
+                                 .withArgName("DIRECTORY")
+                                 .create());
+        o.addOption(OptionBuilder.withLongOpt("workers")
+                                 .withDescription("Number of PDFs to extract at the same time, when given several PDFs, directories, glob patterns or @lists of them. Default is the number of processors")
+                                 .hasArg()
+                                 .withArgName("WORKERS")
+                                 .create());
+        o.addOption(OptionBuilder.withLongOpt("batch-memory")
+                                 .withDescription("Megabytes of memory for the PDFs extracted at the same time, estimated from their size. Larger PDFs wait until enough of it is free. Default is half of the maximum heap size")
+                                 .hasArg()
+                                 .withArgName("MB")
+                                 .create());
 
         return o;
     }
 
+    /**
+     * The extraction options of a command line
+     */
+    private static class ExtractionSettings {
+        final OutputFormat format;
+        final Rectangle area;
+        final List<Float> verticalRulingPositions;
+        final List<Integer> pages;
+        final ExtractionMethod method;
+        final boolean guess;
+        final String password;
+        final File cacheDirectory;
+        final boolean skipProse;
+
+        ExtractionSettings(CommandLine line) throws ParseException {
+            OutputFormat of = OutputFormat.CSV;
+            if (line.hasOption('f')) {
+                try {
+                    of = OutputFormat.valueOf(line.getOptionValue('f'));
+                }
+                catch (IllegalArgumentException e) {
+                    throw new ParseException(String.format(
+                            "format %s is illegal. Available formats: %s",
+                            line.getOptionValue('f'),
+                            Utils.join(",", OutputFormat.formatNames())));
+                }
+
+            }
+            this.format = of;
+
+            Rectangle area = null;
+            if (line.hasOption('a')) {
+                List<Float> f = parseFloatList(line.getOptionValue('a'));
+                if (f.size() != 4) {
+                    throw new ParseException("area parameters must be top,left,bottom,right");
+                }
+                area = new Rectangle(f.get(0), f.get(1), f.get(3) - f.get(1), f.get(2) - f.get(0));
+            }
+            this.area = area;
+
+            this.verticalRulingPositions = line.hasOption('c') ? parseFloatList(line.getOptionValue('c')) : null;
+
+            String pagesOption = line.hasOption('p') ? line.getOptionValue('p') : "1";
+            this.pages = Utils.parsePagesOption(pagesOption);
+            this.method = whichExtractionMethod(line);
+            this.guess = line.hasOption('g');
+            this.password = line.getOptionValue('s');
+            this.cacheDirectory = line.hasOption("cache-dir") ? new File(line.getOptionValue("cache-dir")) : null;
+            this.skipProse = line.hasOption("skip-prose");
+        }
+    }
+
+    /**
+     * One output for the tables of several files, where every table is tagged
+     * with its file and page: as the first two columns of every row in CSV
+     * and TSV, as an object {"file", "page", "tables"} per page in JSON
+     * (and per line in NDJSON).
+     * Pages are written whole, in the order they're done.
+     */
+    private static class TaggedOutput {
+        private final Appendable out;
+        private final OutputFormat format;
+        private final JSONWriter jsonWriter = new JSONWriter();
+        private final CSVWriter csvWriter;
+        private final Gson gson = new Gson();
+        private boolean first = true;
+
+        TaggedOutput(Appendable out, OutputFormat format) {
+            this.out = out;
+            this.format = format;
+            this.csvWriter = format == OutputFormat.TSV ? new TSVWriter() : new CSVWriter();
+        }
+
+        synchronized void begin() throws IOException {
+            if (this.format == OutputFormat.JSON) {
+                this.out.append('[');
+            }
+        }
+
+        synchronized void end() throws IOException {
+            if (this.format == OutputFormat.JSON) {
+                this.out.append(']');
+            }
+            if (this.out instanceof Flushable) {
+                ((Flushable) this.out).flush();
+            }
+        }
+
+        synchronized void write(String file, int page, List<Table> tables) throws IOException {
+            if (tables.isEmpty()) {
+                return;
+            }
+            if (this.format == OutputFormat.JSON || this.format == OutputFormat.NDJSON) {
+                if (this.format == OutputFormat.JSON && !this.first) {
+                    this.out.append(',');
+                }
+                this.out.append("{\"file\":").append(this.gson.toJson(file))
+                        .append(",\"page\":").append(String.valueOf(page)).append(",\"tables\":[");
+                for (int i = 0; i < tables.size(); i++) {
+                    if (i > 0) {
+                        this.out.append(',');
+                    }
+                    this.jsonWriter.write(this.out, tables.get(i));
+                }
+                this.out.append("]}");
+                if (this.format == OutputFormat.NDJSON) {
+                    this.out.append('\n');
+                }
+            }
+            else {
+                String[] fileAndPage = { file, String.valueOf(page) };
+                for (Table table: tables) {
+                    this.csvWriter.write(this.out, table, fileAndPage);
+                }
+            }
+            this.first = false;
+            if (this.out instanceof Flushable) {
+                ((Flushable) this.out).flush();
+            }
+        }
+    }
+
     private enum OutputFormat {
         CSV,
         TSV,
-        JSON;
+        JSON,
+        NDJSON;
 
         static String[] formatNames() {
             OutputFormat[] values = OutputFormat.values();
@@ -0,0 +1,268 @@
+package technology.tabula;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import technology.tabula.detectors.DetectionAlgorithm;
+import technology.tabula.extractors.ExtractionAlgorithm;
+
+/**
+ * Extracts the tables of a list of PDFs in stages connected by bounded
+ * queues, so that reading the next documents from disk and writing results
+ * overlap with finding the tables of the current ones:
+ * <ol>
+ * <li>load: PDDocument.load, on the I/O threads</li>
+ * <li>interpret, detect and extract: ObjectExtractor, then the DetectionAlgorithm
+ * (if any) and the ExtractionAlgorithm for every page, on the CPU threads.
+ * PDFBox documents aren't thread safe, so a document goes through these
+ * stages on a single thread, one page after the other</li>
+ * <li>write: the Sink, on a single thread</li>
+ * </ol>
+ * When a queue is full the stage before it waits, so at most about
+ * queueCapacity loaded documents and queueCapacity pages of results are
+ * held at a time.
+ *
+ * The algorithms are shared by the CPU threads.
+ */
+public class ExtractionPipeline {
+
+    /**
+     * Receives the tables of every page, in the order of the pages of a
+     * document (the pages of different documents are interleaved). It's
+     * called from a single thread, while the document may still be being
+     * extracted on another one, and closed there at any time: the sink
+     * shouldn't use it, through Page.getPDPage for instance.
+     */
+    public interface Sink {
+        void write(File file, Page page, List<? extends Table> tables) throws IOException;
+    }
+
+    // end of a queue
+    private static final Object END = new Object();
+
+    private static final class Loaded {
+        final File file;
+        final PDDocument document;
+
+        Loaded(File file, PDDocument document) {
+            this.file = file;
+            this.document = document;
+        }
+    }
+
+    private static final class Result {
+        final File file;
+        final Page page;
+        final List<? extends Table> tables;
+
+        Result(File file, Page page, List<? extends Table> tables) {
+            this.file = file;
+            this.page = page;
+            this.tables = tables;
+        }
+    }
+
+    private final ExtractionAlgorithm algorithm;
+    private final DetectionAlgorithm detector;
+    private final int ioThreads;
+    private final int cpuThreads;
+    private final int queueCapacity;
+
+    public ExtractionPipeline(ExtractionAlgorithm algorithm) {
+        this(algorithm, null, 2, Runtime.getRuntime().availableProcessors(), 4);
+    }
+
+    /**
+     * @param detector finds the areas of every page to extract, the whole page is extracted if null
+     */
+    public ExtractionPipeline(ExtractionAlgorithm algorithm, DetectionAlgorithm detector,
+            int ioThreads, int cpuThreads, int queueCapacity) {
+        if (ioThreads < 1 || cpuThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("threads and queue capacity must be greater than 0");
+        }
+        this.algorithm = algorithm;
+        this.detector = detector;
+        this.ioThreads = ioThreads;
+        this.cpuThreads = cpuThreads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Extracts every page of files
+     */
+    public Map<File, Exception> run(List<File> files, Sink sink) throws InterruptedException {
+        return this.run(files, null, sink);
+    }
+
+    /**
+     * Extracts pages (every page if null) of files, and waits until all of them are written
+     *
+     * @return the exceptions that made files fail, in the order of files. The
+     * pages of a failed file written before the failure stay written
+     */
+    public Map<File, Exception> run(List<File> files, final List<Integer> pages, final Sink sink)
+            throws InterruptedException {
+        final BlockingQueue<File> input = new LinkedBlockingQueue<File>(files);
+        final BlockingQueue<Object> loaded = new ArrayBlockingQueue<Object>(this.queueCapacity);
+        final BlockingQueue<Object> results = new ArrayBlockingQueue<Object>(this.queueCapacity);
+        final Map<File, Exception> failures = Collections.synchronizedMap(new LinkedHashMap<File, Exception>());
+        final AtomicInteger loaders = new AtomicInteger(this.ioThreads);
+        final AtomicInteger extractors = new AtomicInteger(this.cpuThreads);
+
+        // the loaders and the writer
+        ExecutorService io = Executors.newFixedThreadPool(this.ioThreads + 1);
+        ExecutorService cpu = Executors.newFixedThreadPool(this.cpuThreads);
+        try {
+            for (int i = 0; i < this.ioThreads; i++) {
+                io.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws InterruptedException {
+                        try {
+                            File file;
+                            while ((file = input.poll()) != null) {
+                                try {
+                                    loaded.put(new Loaded(file, PDDocument.load(file)));
+                                } catch (IOException e) {
+                                    failures.put(file, e);
+                                } catch (RuntimeException e) {
+                                    failures.put(file, e);
+                                } catch (Error e) {
+                                    // an OutOfMemoryError, for instance: the other documents can go on
+                                    failures.put(file, new RuntimeException(e.toString(), e));
+                                }
+                            }
+                        } finally {
+                            if (loaders.decrementAndGet() == 0) {
+                                for (int j = 0; j < cpuThreads; j++) {
+                                    loaded.put(END);
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                });
+            }
+
+            for (int i = 0; i < this.cpuThreads; i++) {
+                cpu.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws InterruptedException {
+                        try {
+                            Object item;
+                            while ((item = loaded.take()) != END) {
+                                Loaded document = (Loaded) item;
+                                try {
+                                    extract(document, pages, results);
+                                } catch (IOException e) {
+                                    failures.put(document.file, e);
+                                } catch (RuntimeException e) {
+                                    failures.put(document.file, e);
+                                } catch (Error e) {
+                                    // an OutOfMemoryError, for instance: the other documents can go on
+                                    failures.put(document.file, new RuntimeException(e.toString(), e));
+                                } finally {
+                                    close(document.document);
+                                }
+                            }
+                        } finally {
+                            if (extractors.decrementAndGet() == 0) {
+                                results.put(END);
+                            }
+                        }
+                        return null;
+                    }
+                });
+            }
+
+            Future<Void> writer = io.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws InterruptedException {
+                    Object item;
+                    while ((item = results.take()) != END) {
+                        Result result = (Result) item;
+                        if (failures.containsKey(result.file)) {
+                            continue;
+                        }
+                        try {
+                            sink.write(result.file, result.page, result.tables);
+                        } catch (IOException e) {
+                            failures.put(result.file, e);
+                        } catch (RuntimeException e) {
+                            failures.put(result.file, e);
+                        }
+                    }
+                    return null;
+                }
+            });
+
+            try {
+                writer.get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        } finally {
+            io.shutdownNow();
+            cpu.shutdownNow();
+            // documents loaded but not extracted, if interrupted
+            for (Object item: loaded) {
+                if (item instanceof Loaded) {
+                    close(((Loaded) item).document);
+                }
+            }
+        }
+
+        Map<File, Exception> rv = new LinkedHashMap<File, Exception>();
+        synchronized (failures) {
+            for (File file: files) {
+                if (failures.containsKey(file)) {
+                    rv.put(file, failures.get(file));
+                }
+            }
+        }
+        return rv;
+    }
+
+    private void extract(Loaded document, List<Integer> pages, BlockingQueue<Object> results)
+            throws IOException, InterruptedException {
+        ObjectExtractor oe = new ObjectExtractor(document.document);
+        PageIterator pageIterator = pages == null ? oe.extract() : oe.extract(pages);
+        while (pageIterator.hasNext()) {
+            Page page = pageIterator.next();
+            List<Table> tables = new ArrayList<Table>();
+            if (this.detector == null) {
+                tables.addAll(this.algorithm.extract(page));
+            }
+            else {
+                for (Rectangle area: this.detector.detect(page)) {
+                    tables.addAll(this.algorithm.extract(page.getArea(area)));
+                }
+            }
+            results.put(new Result(document.file, page, tables));
+        }
+    }
+
+    private static void close(PDDocument document) {
+        try {
+            document.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
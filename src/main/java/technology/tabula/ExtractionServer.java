@@ -0,0 +1,186 @@
+package technology.tabula;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.GnuParser;
+import org.apache.commons.cli.ParseException;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Runs CommandLineApp jobs in a long running process, so a batch of small
+ * PDFs doesn't pay for starting a JVM, loading classes and warming up the JIT
+ * on every file.
+ *
+ * Jobs are read one per line, as a JSON array of the arguments of a tabula
+ * command, for instance
+ * <pre>["-p", "all", "-f", "JSON", "/path/to/file.pdf"]</pre>
+ * The output of a job is sent as it's written (at least once per page), in
+ * chunks made of a line "DATA &lt;length&gt;" followed by length bytes of
+ * UTF-8 text. Then comes a line "END" if the job succeeded, or
+ * "ERROR &lt;message&gt;" if it failed.
+ *
+ * Jobs share a thread pool for guess mode and open page caches. The jobs of
+ * a connection run one after the other, connections run concurrently.
+ */
+public class ExtractionServer implements Closeable {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ExecutorService detectionExecutor =
+            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final Map<File, PageCache> pageCaches = new HashMap<File, PageCache>();
+    private final Gson gson = new Gson();
+
+    /**
+     * Runs the jobs read from in until its end, writing their output to out
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+        OutputStream output = new BufferedOutputStream(out);
+        String request;
+        while ((request = reader.readLine()) != null) {
+            if (request.trim().length() > 0) {
+                this.run(request, output);
+            }
+        }
+    }
+
+    /**
+     * Accepts connections to port on the loopback interface, and serves
+     * every one of them until it's closed. Doesn't return.
+     */
+    public void listen(int port) throws IOException {
+        ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+        try {
+            while (true) {
+                final Socket socket = serverSocket.accept();
+                this.connections.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            serve(socket.getInputStream(), socket.getOutputStream());
+                        } catch (IOException e) {
+                            // the client went away
+                        } finally {
+                            try {
+                                socket.close();
+                            } catch (IOException e) {
+                                e.printStackTrace();
+                            }
+                        }
+                    }
+                });
+            }
+        } finally {
+            serverSocket.close();
+        }
+    }
+
+    /**
+     * Runs one job and writes its output and status to out
+     */
+    void run(String request, OutputStream out) throws IOException {
+        ChunkedOutput output = new ChunkedOutput(out);
+        String error = null;
+        try {
+            String[] args = this.gson.fromJson(request, String[].class);
+            if (args == null) {
+                throw new ParseException("Empty job");
+            }
+            CommandLine line = new GnuParser().parse(CommandLineApp.buildOptions(), args);
+            if (line.hasOption("serve")) {
+                throw new ParseException("Can't serve from a job");
+            }
+            if (line.getArgs().length == 0) {
+                throw new ParseException("Need at least one filename");
+            }
+            new CommandLineApp(output, this.detectionExecutor, this.pageCaches).extractTables(line);
+            output.flush();
+        } catch (ParseException e) {
+            error = e.getMessage();
+        } catch (JsonParseException e) {
+            error = "A job must be a JSON array of arguments";
+        } catch (RuntimeException e) {
+            // keep serving the next jobs
+            error = e.toString();
+        }
+
+        if (error == null) {
+            out.write("END\n".getBytes(UTF_8));
+        }
+        else {
+            out.write(("ERROR " + String.valueOf(error).replaceAll("\\s+", " ") + "\n").getBytes(UTF_8));
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        this.connections.shutdownNow();
+        this.detectionExecutor.shutdown();
+    }
+
+    /**
+     * Sends what was appended to it as a chunk on every flush
+     */
+    private static class ChunkedOutput implements Appendable, Flushable {
+
+        private final OutputStream out;
+        private final StringBuilder buffer = new StringBuilder();
+
+        ChunkedOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            this.buffer.append(csq);
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            this.buffer.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            this.buffer.append(c);
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (this.buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = this.buffer.toString().getBytes(UTF_8);
+            this.buffer.setLength(0);
+            this.out.write(("DATA " + bytes.length + "\n").getBytes(UTF_8));
+            this.out.write(bytes);
+            this.out.flush();
+        }
+    }
+
+}
@@ -37,6 +37,8 @@ public class ObjectExtractor extends org.apache.pdfbox.pdfviewer.PageDrawer {
     private float minCharWidth;
     private float minCharHeight;
     private List<TextElement> characters;
+    private TextElementStore textStore;
+    private boolean columnarText = false;
     private List<Ruling> rulings;
     private RectangleSpatialIndex<TextElement> spatialIndex;
     private AffineTransform pageTransform;
@@ -45,6 +47,8 @@ public class ObjectExtractor extends org.apache.pdfbox.pdfviewer.PageDrawer {
     private boolean extractRulingLines;
     private final PDDocument pdf_document;
     protected List pdf_document_pages;
+    private final PageCache pageCache;
+    private PageDigest pageDigest;
 
 
     public ObjectExtractor(PDDocument pdf_document) throws IOException {
@@ -61,8 +65,18 @@ public class ObjectExtractor extends org.apache.pdfbox.pdfviewer.PageDrawer {
 
     public ObjectExtractor(PDDocument pdf_document, String password, boolean extractRulingLines, boolean debugClippingPaths)
             throws IOException {
+        this(pdf_document, password, extractRulingLines, debugClippingPaths, null);
+    }
+
+    /**
+     * @param pageCache if not null, extracted pages are looked up in and added to it
+     */
+    public ObjectExtractor(PDDocument pdf_document, String password, boolean extractRulingLines, boolean debugClippingPaths,
+            PageCache pageCache) throws IOException {
         super();
         
+        this.pageCache = debugClippingPaths ? null : pageCache;
+        
         this.clippingPaths = new ArrayList<Shape>();
         this.debugClippingPaths = debugClippingPaths;
         this.extractRulingLines = extractRulingLines;
@@ -105,11 +119,38 @@ public class ObjectExtractor extends org.apache.pdfbox.pdfviewer.PageDrawer {
         this.initialize();
 
         PDPage pdPage = (PDPage) this.pdf_document_pages.get(page_number - 1);
+
+        String cacheKey = null;
+        if (this.pageCache != null && pdPage.getContents() != null) {
+            this.page = pdPage;
+            ensurePageSize();
+            if (this.pageDigest == null) {
+                this.pageDigest = new PageDigest();
+            }
+            cacheKey = this.pageDigest.digest(pdPage, this.pageSize, this.extractRulingLines);
+            Page cached = this.pageCache.get(cacheKey, pdPage, page_number);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         pdPage = this.drawPage(pdPage);
         
         if(pdPage != null) {
         	
-        	Utils.sort(this.characters);
+        	if (this.textStore != null) {
+        	    // the index keeps the elements in the order they were found, as when
+        	    // they are added one by one
+        	    int[] order = this.textStore.sort();
+        	    int[] positions = new int[order.length];
+        	    for (int i = 0; i < order.length; i++) {
+        	        positions[order[i]] = i;
+        	    }
+        	    this.spatialIndex = new RectangleSpatialIndex<TextElement>(this.textStore.snapshot(), positions);
+        	}
+        	else {
+        	    Utils.sort(this.characters);
+        	}
         	
         	float w, h;
         	int pageRotation = pdPage.findRotation();
@@ -122,13 +163,34 @@ public class ObjectExtractor extends org.apache.pdfbox.pdfviewer.PageDrawer {
         		h = pdPage.findCropBox().getHeight();
         	}
         	
-        	return new Page(0, 0, w, h, pageRotation, page_number, pdPage, this.characters,
+        	Page rv = new Page(0, 0, w, h, pageRotation, page_number, pdPage, this.characters,
         			this.rulings, this.minCharWidth, this.minCharHeight,
         			this.spatialIndex);
+
+        	if (cacheKey != null) {
+        	    try {
+        	        this.pageCache.put(cacheKey, rv);
+        	    } catch (IOException e) {
+        	        // not being able to cache a page shouldn't stop the extraction
+        	        e.printStackTrace();
+        	    }
+        	}
+        	return rv;
         }
         return null;//TODO: content is empty, return null? or empty Page? or exception?
     }
 
+    /**
+     * The PDPage of pageNumber (starting at 1), not interpreted yet
+     */
+    public PDPage getPDPage(int pageNumber) {
+        if (pageNumber > this.pdf_document_pages.size() || pageNumber < 1) {
+            throw new java.lang.IndexOutOfBoundsException(
+                    "Page number does not exist");
+        }
+        return (PDPage) this.pdf_document_pages.get(pageNumber - 1);
+    }
+
     public PageIterator extract(Iterable<Integer> pages) {
         return new PageIterator(this, pages);
     }
@@ -165,7 +227,8 @@ public class ObjectExtractor extends org.apache.pdfbox.pdfviewer.PageDrawer {
     }
 
     private void initialize() {
-        this.characters = new ArrayList<TextElement>();
+        this.textStore = this.columnarText ? new TextElementStore() : null;
+        this.characters = this.columnarText ? this.textStore : new ArrayList<TextElement>();
         this.rulings = new ArrayList<Ruling>();
         this.pageTransform = null;
         this.spatialIndex = new RectangleSpatialIndex<TextElement>();
@@ -325,27 +388,42 @@ public class ObjectExtractor extends org.apache.pdfbox.pdfviewer.PageDrawer {
         }
 
         float wos = textPosition.getWidthOfSpace();
-
-        TextElement te = new TextElement(
-                Utils.round(textPosition.getYDirAdj() - h, 2),
-                Utils.round(textPosition.getXDirAdj(), 2),
-                Utils.round(textPosition.getWidthDirAdj(), 2),
-                Utils.round(textPosition.getHeightDir(), 2),
-                textPosition.getFont(),
-                textPosition.getFontSize(),
-                c,
-                // workaround a possible bug in PDFBox:
-                // https://issues.apache.org/jira/browse/PDFBOX-1755
-                (Float.isNaN(wos) || wos == 0) ? this.currentSpaceWidth() : wos,
-                textPosition.getDir());
-
-       if (this.currentClippingPath().intersects(te)) {
-
-            this.minCharWidth = (float) Math.min(this.minCharWidth, te.getWidth());
-            this.minCharHeight = (float) Math.min(this.minCharHeight, te.getHeight());
-
-            this.spatialIndex.add(te);
-            this.characters.add(te);
+        // workaround a possible bug in PDFBox:
+        // https://issues.apache.org/jira/browse/PDFBOX-1755
+        wos = (Float.isNaN(wos) || wos == 0) ? this.currentSpaceWidth() : wos;
+
+        if (this.textStore != null) {
+            float x = Utils.round(textPosition.getXDirAdj(), 2);
+            float y = Utils.round(textPosition.getYDirAdj() - h, 2);
+            float width = Utils.round(textPosition.getWidthDirAdj(), 2);
+            float height = Utils.round(textPosition.getHeightDir(), 2);
+            if (this.currentClippingPath().intersects(x, y, width, height)) {
+                this.minCharWidth = Math.min(this.minCharWidth, width);
+                this.minCharHeight = Math.min(this.minCharHeight, height);
+                this.textStore.add(y, x, width, height, textPosition.getFont(), textPosition.getFontSize(), c, wos,
+                        textPosition.getDir());
+            }
+        }
+        else {
+            TextElement te = new TextElement(
+                    Utils.round(textPosition.getYDirAdj() - h, 2),
+                    Utils.round(textPosition.getXDirAdj(), 2),
+                    Utils.round(textPosition.getWidthDirAdj(), 2),
+                    Utils.round(textPosition.getHeightDir(), 2),
+                    textPosition.getFont(),
+                    textPosition.getFontSize(),
+                    c,
+                    wos,
+                    textPosition.getDir());
+
+            if (this.currentClippingPath().intersects(te)) {
+
+                this.minCharWidth = (float) Math.min(this.minCharWidth, te.getWidth());
+                this.minCharHeight = (float) Math.min(this.minCharHeight, te.getHeight());
+
+                this.spatialIndex.add(te);
+                this.characters.add(te);
+            }
         }
 
         if (this.isDebugClippingPaths() && !this.clippingPaths.contains(this.currentClippingPath())) {
@@ -400,6 +478,18 @@ public class ObjectExtractor extends org.apache.pdfbox.pdfviewer.PageDrawer {
         return debugClippingPaths;
     }
 
+    /**
+     * Keep the text of the pages extracted from now on in a TextElementStore
+     * instead of a list of TextElements, which takes several times less memory
+     */
+    public void setColumnarText(boolean columnarText) {
+        this.columnarText = columnarText;
+    }
+
+    public boolean isColumnarText() {
+        return columnarText;
+    }
+
     public int getPageCount() {
         return this.pdf_document_pages.size();
     }
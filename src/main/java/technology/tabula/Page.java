@@ -1,6 +1,7 @@
 package technology.tabula;
 
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -23,6 +24,111 @@ public class Page extends Rectangle {
     private float minCharHeight;
     private RectangleSpatialIndex<TextElement> spatial_index;
     private PDPage pdPage;
+    private RulingIndex rulingIndex = null;
+    // for an area: minX, minY, maxX, maxY of the text it holds, null for a whole page
+    private float[] textBounds = null;
+    private boolean minCharSizeKnown = true;
+
+    /**
+     * The cleaned up rulings of a page, by position, so that the rulings of an
+     * area are found without looking at all of them
+     */
+    private static final class RulingIndex {
+        private final List<Ruling> rulings;
+        // positions in rulings of the vertical and horizontal rulings, sorted by position
+        private final int[] verticals, horizontals;
+        private final float[] verticalPositions, horizontalPositions;
+        // largest difference between the two ends of a ruling, across its orientation
+        private final float verticalSpan, horizontalSpan;
+        private final List<Integer> others = new ArrayList<Integer>();
+
+        RulingIndex(List<Ruling> rulings) {
+            this.rulings = rulings;
+            List<Integer> v = new ArrayList<Integer>(), h = new ArrayList<Integer>();
+            float vSpan = 0, hSpan = 0;
+            for (int i = 0; i < rulings.size(); i++) {
+                Ruling r = rulings.get(i);
+                if (r.vertical()) {
+                    v.add(i);
+                    vSpan = Math.max(vSpan, Math.abs(r.x2 - r.x1));
+                }
+                else if (r.horizontal()) {
+                    h.add(i);
+                    hSpan = Math.max(hSpan, Math.abs(r.y2 - r.y1));
+                }
+                else {
+                    this.others.add(i);
+                }
+            }
+            this.verticals = sortedBy(rulings, v, true);
+            this.horizontals = sortedBy(rulings, h, false);
+            this.verticalPositions = positions(rulings, this.verticals, true);
+            this.horizontalPositions = positions(rulings, this.horizontals, false);
+            this.verticalSpan = vSpan;
+            this.horizontalSpan = hSpan;
+        }
+
+        /**
+         * Same as Ruling.cropRulingsToArea(rulings, area)
+         */
+        List<Ruling> crop(Rectangle2D area) {
+            List<Integer> found = new ArrayList<Integer>(this.others);
+            // a ruling can only intersect area if its ends aren't both on the same side of it,
+            // the margin covers rounding
+            find(this.verticals, this.verticalPositions, area.getMinX() - this.verticalSpan - 1, area.getMaxX() + 1, found);
+            find(this.horizontals, this.horizontalPositions, area.getMinY() - this.horizontalSpan - 1, area.getMaxY() + 1, found);
+            Collections.sort(found);
+
+            List<Ruling> candidates = new ArrayList<Ruling>(found.size());
+            for (int i: found) {
+                candidates.add(this.rulings.get(i));
+            }
+            return Ruling.cropRulingsToArea(candidates, area);
+        }
+
+        private static void find(int[] sorted, float[] positions, double from, double to, List<Integer> found) {
+            int low = 0, high = positions.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (positions[mid] < from) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < positions.length && positions[i] <= to; i++) {
+                found.add(sorted[i]);
+            }
+        }
+
+        private static int[] sortedBy(final List<Ruling> rulings, List<Integer> indices, final boolean vertical) {
+            Collections.sort(indices, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer i, Integer j) {
+                    return java.lang.Float.compare(position(rulings.get(i), vertical), position(rulings.get(j), vertical));
+                }
+            });
+            int[] rv = new int[indices.size()];
+            for (int i = 0; i < rv.length; i++) {
+                rv[i] = indices.get(i);
+            }
+            return rv;
+        }
+
+        private static float[] positions(List<Ruling> rulings, int[] sorted, boolean vertical) {
+            float[] rv = new float[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                rv[i] = position(rulings.get(sorted[i]), vertical);
+            }
+            return rv;
+        }
+
+        // the smaller coordinate of the two ends, across the ruling
+        private static float position(Ruling r, boolean vertical) {
+            return vertical ? Math.min(r.x1, r.x2) : Math.min(r.y1, r.y2);
+        }
+    }
 
     public Page(float top, float left, float width, float height, int rotation, int page_number, PDPage pdPage) {
         super(top, left, width, height);
@@ -51,8 +157,12 @@ public class Page extends Rectangle {
     }
 
     
+    /**
+     * The part of this page inside area. It shares the text and spatial index
+     * of this page: its text is looked up, and its minimum character size
+     * computed, when they're first needed.
+     */
     public Page getArea(Rectangle area) {
-        List<TextElement> t = getText(area);
         Page rv = new Page(
                 (float) area.getTop(),
                 (float) area.getLeft(),
@@ -60,24 +170,15 @@ public class Page extends Rectangle {
                 (float) area.getHeight(),
                 rotation,
                 pageNumber,
-                pdPage,
-                t,
-                Ruling.cropRulingsToArea(getRulings(), area),
-
-                Collections.min(t, new Comparator<TextElement>() {
-                    @Override
-                    public int compare(TextElement te1, TextElement te2) {
-                        return java.lang.Float.compare(te1.width, te2.width);
-                    }}).width,
-                
-                Collections.min(t, new Comparator<TextElement>() {
-                        @Override
-                        public int compare(TextElement te1, TextElement te2) {
-                            return java.lang.Float.compare(te1.height, te2.height);
-                }}).height,
-                
-                spatial_index);
-        
+                pdPage);
+        rv.rulings = this.cropRulings(area);
+        rv.spatial_index = this.spatial_index;
+        rv.textBounds = this.clip(area);
+        // kept if the area has no text
+        rv.minCharWidth = this.getMinCharWidth();
+        rv.minCharHeight = this.getMinCharHeight();
+        rv.minCharSizeKnown = false;
+
         rv.addRuling(new Ruling(
                 new Point2D.Double(rv.getLeft(), 
                 		rv.getTop()), 
@@ -101,18 +202,58 @@ public class Page extends Rectangle {
  
         return rv;
     }
-    
+
+    /**
+     * Bounds of area, as compared by the spatial index, limited to the text bounds of this page
+     */
+    private float[] clip(Rectangle area) {
+        float[] rv = {
+                (float) area.getX(),
+                (float) area.getY(),
+                (float) (area.getX() + area.getWidth()),
+                (float) (area.getY() + area.getHeight()) };
+        if (this.textBounds != null) {
+            rv[0] = Math.max(rv[0], this.textBounds[0]);
+            rv[1] = Math.max(rv[1], this.textBounds[1]);
+            rv[2] = Math.min(rv[2], this.textBounds[2]);
+            rv[3] = Math.min(rv[3], this.textBounds[3]);
+        }
+        return rv;
+    }
+
+    /**
+     * The cleaned up rulings of this page, cropped to area
+     */
+    private List<Ruling> cropRulings(Rectangle area) {
+        List<Ruling> rulings = this.getRulings();
+        if (this.rulingIndex == null) {
+            this.rulingIndex = new RulingIndex(rulings);
+        }
+        return this.rulingIndex.crop(area);
+    }
+
     public Page getArea(float top, float left, float bottom, float right) {
         Rectangle area = new Rectangle(top, left, right - left, bottom - top);
         return this.getArea(area);
     }
     
     public List<TextElement> getText() {
+        if (this.texts == null && this.textBounds != null) {
+            this.texts = this.textIn(this.textBounds);
+        }
         return texts;
     }
     
     public List<TextElement> getText(Rectangle area) {
-        return this.spatial_index.contains(area);
+        if (this.textBounds == null) {
+            return this.spatial_index.contains(area);
+        }
+        // only the text of this area, not of the whole page
+        return this.textIn(this.clip(area));
+    }
+
+    private List<TextElement> textIn(float[] bounds) {
+        return this.spatial_index.contains(bounds[0], bounds[1], bounds[2], bounds[3]);
     }
     
     public List<TextElement> getText(float top, float left, float bottom, float right) {
@@ -128,7 +269,7 @@ public class Page extends Rectangle {
     }
 
     public List<TextElement> getTexts() {
-        return texts;
+        return this.getText();
     }
     
     /**
@@ -156,7 +297,7 @@ public class Page extends Rectangle {
             return new ArrayList<Ruling>();
         }
         
-        Utils.snapPoints(this.rulings, this.minCharWidth, this.minCharHeight);
+        Utils.snapPoints(this.rulings, this.getMinCharWidth(), this.getMinCharHeight());
         
         List<Ruling> vrs = new ArrayList<Ruling>();
         for (Ruling vr: this.rulings) {
@@ -206,6 +347,7 @@ public class Page extends Rectangle {
         this.verticalRulingLines = null;
         this.horizontalRulingLines = null;
         this.cleanRulings = null;
+        this.rulingIndex = null;
     }
     
     public List<Ruling> getUnprocessedRulings() {
@@ -213,13 +355,32 @@ public class Page extends Rectangle {
     }
 
     public float getMinCharWidth() {
+        this.computeMinCharSize();
         return minCharWidth;
     }
 
     public float getMinCharHeight() {
+        this.computeMinCharSize();
         return minCharHeight;
     }
 
+    private void computeMinCharSize() {
+        if (this.minCharSizeKnown) {
+            return;
+        }
+        List<TextElement> texts = this.getText();
+        if (!texts.isEmpty()) {
+            float width = java.lang.Float.MAX_VALUE, height = java.lang.Float.MAX_VALUE;
+            for (TextElement te: texts) {
+                width = Math.min(width, te.width);
+                height = Math.min(height, te.height);
+            }
+            this.minCharWidth = width;
+            this.minCharHeight = height;
+        }
+        this.minCharSizeKnown = true;
+    }
+
     public PDPage getPDPage() {
     	return pdPage;
     }
@@ -229,7 +390,7 @@ public class Page extends Rectangle {
     }
     
     public boolean hasText() {
-        return this.texts.size() > 0;
+        return this.getText().size() > 0;
     }
     
     
@@ -0,0 +1,140 @@
+package technology.tabula;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+
+/**
+ * On-disk cache of extracted pages (text elements and ruling lines), so
+ * ObjectExtractor can skip interpreting the content stream of a page it has
+ * already seen.
+ *
+ * Entries are keyed by a digest of the page contents, resources and extraction
+ * settings (see PageDigest) and stored one per file, in the format of
+ * PageSerializer.
+ * When the cache grows over its maximum size, the least recently used entries
+ * are deleted. A PageCache can be shared by several ObjectExtractors.
+ */
+public class PageCache {
+
+    private static final String SUFFIX = ".page";
+
+    private final File directory;
+    private final long maxSize;
+    // key -> file size, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long size = 0;
+
+    public PageCache(File directory, long maxSize) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create cache directory " + directory);
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+
+        // oldest first
+        File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.isFile() && f.getName().endsWith(SUFFIX);
+            }
+        });
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.valueOf(o1.lastModified()).compareTo(o2.lastModified());
+            }
+        });
+        for (File f: files) {
+            String name = f.getName();
+            this.entries.put(name.substring(0, name.length() - SUFFIX.length()), f.length());
+            this.size += f.length();
+        }
+        this.evict();
+    }
+
+    /**
+     * Cached page for key, or null if there's none
+     *
+     * @param pdPage the PDPage to attach to the returned Page
+     */
+    public synchronized Page get(String key, PDPage pdPage, int pageNumber) {
+        if (this.entries.get(key) == null) {
+            return null;
+        }
+        File f = this.file(key);
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+            try {
+                Page page = PageSerializer.read(in, pdPage, pageNumber);
+                f.setLastModified(System.currentTimeMillis());
+                return page;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            // unreadable or from another version, forget it
+            this.remove(key);
+            return null;
+        }
+    }
+
+    public synchronized void put(String key, Page page) throws IOException {
+        File tmp = new File(this.directory, key + ".tmp");
+        OutputStream out = new FileOutputStream(tmp);
+        try {
+            PageSerializer.write(page, out);
+        } finally {
+            out.close();
+        }
+
+        this.remove(key);
+        if (!tmp.renameTo(this.file(key))) {
+            tmp.delete();
+            throw new IOException("Can't write cache entry " + key);
+        }
+        long length = this.file(key).length();
+        this.entries.put(key, length);
+        this.size += length;
+        this.evict();
+    }
+
+    public synchronized long size() {
+        return this.size;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = this.entries.entrySet().iterator();
+        while (this.size > this.maxSize && it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            this.file(entry.getKey()).delete();
+            this.size -= entry.getValue();
+            it.remove();
+        }
+    }
+
+    private void remove(String key) {
+        Long length = this.entries.remove(key);
+        if (length != null) {
+            this.size -= length;
+        }
+        this.file(key).delete();
+    }
+
+    private File file(String key) {
+        return new File(this.directory, key + SUFFIX);
+    }
+
+}
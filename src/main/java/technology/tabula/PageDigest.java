@@ -0,0 +1,212 @@
+package technology.tabula;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+/**
+ * Hashes everything that ObjectExtractor's output for a page depends on: its
+ * content streams, its resources (fonts, form XObjects...), its boxes and rotation
+ * and the extraction settings.
+ *
+ * Streams shared by several pages (fonts, mostly) are hashed once per document,
+ * so an instance should be kept for the whole life of a PDDocument.
+ * The data of image XObjects is not hashed, it doesn't affect extraction.
+ */
+class PageDigest {
+
+    // bump when ObjectExtractor changes what it extracts from the same content
+    private static final String EXTRACTION_VERSION = "1";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Map<COSBase, byte[]> streamDigests = new IdentityHashMap<COSBase, byte[]>();
+    private final byte[] buffer = new byte[8192];
+
+    public String digest(PDPage page, Dimension pageSize, boolean extractRulingLines) throws IOException {
+        MessageDigest md = newDigest();
+        update(md, EXTRACTION_VERSION);
+        update(md, extractRulingLines ? 1 : 0);
+        update(md, page.findRotation());
+        if (pageSize != null) {
+            update(md, pageSize.width);
+            update(md, pageSize.height);
+        }
+        for (PDRectangle box: new PDRectangle[] { page.findMediaBox(), page.findCropBox() }) {
+            if (box != null) {
+                update(md, java.lang.Float.floatToIntBits(box.getLowerLeftX()));
+                update(md, java.lang.Float.floatToIntBits(box.getLowerLeftY()));
+                update(md, java.lang.Float.floatToIntBits(box.getUpperRightX()));
+                update(md, java.lang.Float.floatToIntBits(box.getUpperRightY()));
+            }
+        }
+
+        IdentityHashMap<COSBase, Integer> visited = new IdentityHashMap<COSBase, Integer>();
+        this.update(md, page.getCOSDictionary().getDictionaryObject(COSName.CONTENTS), visited);
+        PDResources resources = page.findResources();
+        this.update(md, resources == null ? null : resources.getCOSDictionary(), visited);
+
+        byte[] digest = md.digest();
+        char[] rv = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            rv[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+            rv[i * 2 + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(rv);
+    }
+
+    private void update(MessageDigest md, COSBase object, IdentityHashMap<COSBase, Integer> visited) throws IOException {
+        if (object instanceof COSObject) {
+            object = ((COSObject) object).getObject();
+        }
+
+        if (object == null) {
+            md.update((byte) 'z');
+        }
+        else if (visited.containsKey(object)) {
+            // back reference, objects can refer to their ancestors
+            md.update((byte) 'r');
+            update(md, visited.get(object));
+        }
+        else if (object instanceof COSStream) {
+            md.update((byte) 'S');
+            md.update(this.streamDigest((COSStream) object));
+        }
+        else if (object instanceof COSDictionary) {
+            visited.put(object, visited.size());
+            COSDictionary dictionary = (COSDictionary) object;
+            md.update((byte) 'd');
+            for (COSName key: sortedKeys(dictionary)) {
+                update(md, key.getName());
+                this.update(md, dictionary.getItem(key), visited);
+            }
+            md.update((byte) 'e');
+        }
+        else if (object instanceof COSArray) {
+            visited.put(object, visited.size());
+            COSArray array = (COSArray) object;
+            md.update((byte) 'a');
+            for (int i = 0; i < array.size(); i++) {
+                this.update(md, array.get(i), visited);
+            }
+            md.update((byte) 'e');
+        }
+        else if (object instanceof COSName) {
+            md.update((byte) 'n');
+            update(md, ((COSName) object).getName());
+        }
+        else if (object instanceof COSString) {
+            byte[] bytes = ((COSString) object).getBytes();
+            md.update((byte) 's');
+            update(md, bytes.length);
+            md.update(bytes);
+        }
+        else if (object instanceof COSNumber) {
+            COSNumber number = (COSNumber) object;
+            md.update((byte) 'i');
+            update(md, java.lang.Float.floatToIntBits(number.floatValue()));
+            update(md, (int) (number.longValue() >>> 32));
+            update(md, (int) number.longValue());
+        }
+        else if (object instanceof COSBoolean) {
+            md.update((byte) (((COSBoolean) object).getValue() ? 't' : 'f'));
+        }
+        else {
+            md.update((byte) 'z');
+        }
+    }
+
+    private byte[] streamDigest(COSStream stream) throws IOException {
+        byte[] rv = this.streamDigests.get(stream);
+        if (rv != null) {
+            return rv;
+        }
+        // placeholder for streams that (indirectly) refer to themselves
+        this.streamDigests.put(stream, new byte[] { 'p' });
+
+        MessageDigest md = newDigest();
+        IdentityHashMap<COSBase, Integer> visited = new IdentityHashMap<COSBase, Integer>();
+        visited.put(stream, 0);
+        for (COSName key: sortedKeys(stream)) {
+            update(md, key.getName());
+            this.update(md, stream.getItem(key), visited);
+        }
+
+        if (!COSName.IMAGE.equals(stream.getDictionaryObject(COSName.SUBTYPE))) {
+            InputStream is = stream.getFilteredStream();
+            try {
+                int read;
+                while ((read = is.read(this.buffer)) != -1) {
+                    md.update(this.buffer, 0, read);
+                }
+            } finally {
+                is.close();
+            }
+        }
+
+        rv = md.digest();
+        this.streamDigests.put(stream, rv);
+        return rv;
+    }
+
+    private static List<COSName> sortedKeys(COSDictionary dictionary) {
+        Map<String, COSName> byName = new HashMap<String, COSName>();
+        for (COSName key: dictionary.keySet()) {
+            byName.put(key.getName(), key);
+        }
+        List<String> names = new ArrayList<String>(byName.keySet());
+        Collections.sort(names);
+        List<COSName> rv = new ArrayList<COSName>(names.size());
+        for (String name: names) {
+            rv.add(byName.get(name));
+        }
+        return rv;
+    }
+
+    private static void update(MessageDigest md, int i) {
+        md.update((byte) (i >>> 24));
+        md.update((byte) (i >>> 16));
+        md.update((byte) (i >>> 8));
+        md.update((byte) i);
+    }
+
+    private static void update(MessageDigest md, String s) {
+        update(md, s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            md.update((byte) (c >>> 8));
+            md.update((byte) c);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE has SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
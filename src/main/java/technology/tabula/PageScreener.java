@@ -0,0 +1,319 @@
+package technology.tabula;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.util.PDFOperator;
+
+/**
+ * Guesses how likely a page is to have a table from the operators of its
+ * content stream, without interpreting it: no font is loaded, no glyph is
+ * placed and nothing is drawn, so it costs a small part of what
+ * ObjectExtractor and a DetectionAlgorithm spend on a page. Pages that score
+ * low, typically running text, can be skipped or left for later.
+ *
+ * A page scores high if it has
+ * <ul>
+ * <li>ruling lines: rectangles (re) and horizontal or vertical segments (m, l), or</li>
+ * <li>text shown in short runs: a cell holds a few words or a number, while a
+ * line of running text is usually shown by one or two operators (Tj, TJ, ', ")</li>
+ * </ul>
+ * Form XObjects are counted as part of the page. A page without any text
+ * scores 0, as there's nothing to extract from it.
+ */
+public class PageScreener {
+
+    /**
+     * Pages that score less are unlikely to have a table
+     */
+    public static final float DEFAULT_THRESHOLD = 0.5f;
+
+    // rulings for a score of 1, without looking at the text
+    private static final int RULINGS = 20;
+    // text runs this short, on average, look like cells...
+    private static final float CELL_LENGTH = 15;
+    // ...and this long like running text
+    private static final float LINE_LENGTH = 30;
+    // text runs for a score of 1, if they're short
+    private static final int TEXT_RUNS = 20;
+    // a TJ adjustment moving right by more than this (in thousandths of
+    // text space unit) is a gap between columns, not kerning or a space
+    private static final float RUN_GAP = 1000;
+    private static final int MAX_FORM_DEPTH = 8;
+
+    private static final COSName TYPE0 = COSName.getPDFName("Type0");
+
+    /**
+     * Counts of the operators of a page that tell tables from other content
+     */
+    public static class Statistics {
+        private int rectangles = 0;
+        private int rulingSegments = 0;
+        private int otherSegments = 0;
+        private int textOperators = 0;
+        private int textRuns = 0;
+        private long textLength = 0;
+        private int formXObjects = 0;
+        private int images = 0;
+
+        /**
+         * re operators
+         */
+        public int getRectangles() {
+            return this.rectangles;
+        }
+
+        /**
+         * Horizontal or vertical straight segments
+         */
+        public int getRulingSegments() {
+            return this.rulingSegments;
+        }
+
+        /**
+         * Slanted segments and curves
+         */
+        public int getOtherSegments() {
+            return this.otherSegments;
+        }
+
+        /**
+         * Tj, TJ, ' and " operators
+         */
+        public int getTextOperators() {
+            return this.textOperators;
+        }
+
+        /**
+         * Pieces of text shown without a gap. A TJ with large adjustments
+         * between its strings makes several
+         */
+        public int getTextRuns() {
+            return this.textRuns;
+        }
+
+        /**
+         * Glyphs shown, counting 2 bytes per glyph for Type0 fonts
+         */
+        public long getTextLength() {
+            return this.textLength;
+        }
+
+        public int getFormXObjects() {
+            return this.formXObjects;
+        }
+
+        /**
+         * Image XObjects and inline images
+         */
+        public int getImages() {
+            return this.images;
+        }
+
+        /**
+         * How likely the page is to have a table, from 0 to 1
+         */
+        public float score() {
+            if (this.textRuns == 0) {
+                return 0;
+            }
+            float rulings = Math.min(1f, (this.rectangles + this.rulingSegments) / (float) RULINGS);
+            float averageLength = this.textLength / (float) this.textRuns;
+            float shortRuns = Math.max(0f, Math.min(1f, (LINE_LENGTH - averageLength) / (LINE_LENGTH - CELL_LENGTH)));
+            float text = shortRuns * Math.min(1f, this.textRuns / (float) TEXT_RUNS);
+            return Math.max(rulings, text);
+        }
+    }
+
+    /**
+     * How likely page is to have a table, from 0 to 1
+     */
+    public float score(PDPage page) throws IOException {
+        return this.statistics(page).score();
+    }
+
+    public Statistics statistics(PDPage page) throws IOException {
+        Statistics rv = new Statistics();
+        PDStream contents = page.getContents();
+        if (contents != null) {
+            PDResources resources = page.findResources();
+            Set<COSStream> forms = Collections.newSetFromMap(new IdentityHashMap<COSStream, Boolean>());
+            this.scan(new PDFStreamParser(contents), resources == null ? null : resources.getCOSDictionary(), rv, forms);
+        }
+        return rv;
+    }
+
+    private void scan(PDFStreamParser parser, COSDictionary resources, Statistics stats, Set<COSStream> forms)
+            throws IOException {
+        try {
+            List<COSBase> operands = new ArrayList<COSBase>();
+            // the current point
+            float x = 0, y = 0;
+            int bytesPerGlyph = 1;
+
+            Iterator<Object> tokens = parser.getTokenIterator();
+            while (tokens.hasNext()) {
+                Object token = tokens.next();
+                if (token instanceof COSBase) {
+                    operands.add((COSBase) token);
+                    continue;
+                }
+                if (!(token instanceof PDFOperator)) {
+                    continue;
+                }
+
+                String operation = ((PDFOperator) token).getOperation();
+                int n = operands.size();
+                if ("re".equals(operation)) {
+                    stats.rectangles++;
+                }
+                else if ("m".equals(operation)) {
+                    if (n >= 2 && isPoint(operands, n - 2)) {
+                        x = number(operands.get(n - 2));
+                        y = number(operands.get(n - 1));
+                    }
+                }
+                else if ("l".equals(operation)) {
+                    if (n >= 2 && isPoint(operands, n - 2)) {
+                        float toX = number(operands.get(n - 2));
+                        float toY = number(operands.get(n - 1));
+                        if (Math.abs(toX - x) < 0.5f || Math.abs(toY - y) < 0.5f) {
+                            stats.rulingSegments++;
+                        }
+                        else {
+                            stats.otherSegments++;
+                        }
+                        x = toX;
+                        y = toY;
+                    }
+                }
+                else if ("c".equals(operation) || "v".equals(operation) || "y".equals(operation)) {
+                    stats.otherSegments++;
+                    if (n >= 2 && isPoint(operands, n - 2)) {
+                        x = number(operands.get(n - 2));
+                        y = number(operands.get(n - 1));
+                    }
+                }
+                else if ("Tf".equals(operation)) {
+                    if (n >= 2 && operands.get(n - 2) instanceof COSName) {
+                        bytesPerGlyph = bytesPerGlyph(resources, (COSName) operands.get(n - 2));
+                    }
+                }
+                else if ("Tj".equals(operation) || "TJ".equals(operation)
+                        || "'".equals(operation) || "\"".equals(operation)) {
+                    if (n >= 1) {
+                        showText(stats, operands.get(n - 1), bytesPerGlyph);
+                    }
+                }
+                else if ("Do".equals(operation)) {
+                    if (n >= 1 && operands.get(n - 1) instanceof COSName) {
+                        this.xObject(resources, (COSName) operands.get(n - 1), stats, forms);
+                    }
+                }
+                else if ("BI".equals(operation)) {
+                    stats.images++;
+                }
+                operands.clear();
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    private void xObject(COSDictionary resources, COSName name, Statistics stats, Set<COSStream> forms)
+            throws IOException {
+        COSBase xObject = resource(resources, COSName.XOBJECT, name);
+        if (!(xObject instanceof COSStream)) {
+            return;
+        }
+        COSStream stream = (COSStream) xObject;
+        COSBase subtype = stream.getDictionaryObject(COSName.SUBTYPE);
+        if (COSName.IMAGE.equals(subtype)) {
+            stats.images++;
+        }
+        else if (COSName.FORM.equals(subtype)) {
+            stats.formXObjects++;
+            // forms can (wrongly) draw themselves
+            if (forms.contains(stream) || forms.size() >= MAX_FORM_DEPTH) {
+                return;
+            }
+            COSBase formResources = stream.getDictionaryObject(COSName.RESOURCES);
+            forms.add(stream);
+            this.scan(new PDFStreamParser(stream),
+                    formResources instanceof COSDictionary ? (COSDictionary) formResources : resources,
+                    stats, forms);
+            forms.remove(stream);
+        }
+    }
+
+    private static void showText(Statistics stats, COSBase operand, int bytesPerGlyph) {
+        stats.textOperators++;
+        int run = 0;
+        if (operand instanceof COSString) {
+            run = ((COSString) operand).getBytes().length;
+        }
+        else if (operand instanceof COSArray) {
+            COSArray array = (COSArray) operand;
+            for (int i = 0; i < array.size(); i++) {
+                COSBase item = array.getObject(i);
+                if (item instanceof COSString) {
+                    run += ((COSString) item).getBytes().length;
+                }
+                else if (item instanceof COSNumber && ((COSNumber) item).floatValue() < -RUN_GAP && run > 0) {
+                    endRun(stats, run, bytesPerGlyph);
+                    run = 0;
+                }
+            }
+        }
+        if (run > 0) {
+            endRun(stats, run, bytesPerGlyph);
+        }
+    }
+
+    private static void endRun(Statistics stats, int bytes, int bytesPerGlyph) {
+        stats.textRuns++;
+        stats.textLength += Math.max(1, bytes / bytesPerGlyph);
+    }
+
+    // composite fonts use (at least, and most often) 2 bytes per glyph
+    private static int bytesPerGlyph(COSDictionary resources, COSName fontName) {
+        COSBase font = resource(resources, COSName.FONT, fontName);
+        if (font instanceof COSDictionary && TYPE0.equals(((COSDictionary) font).getDictionaryObject(COSName.SUBTYPE))) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static COSBase resource(COSDictionary resources, COSName category, COSName name) {
+        if (resources == null) {
+            return null;
+        }
+        COSBase dictionary = resources.getDictionaryObject(category);
+        return dictionary instanceof COSDictionary ? ((COSDictionary) dictionary).getDictionaryObject(name) : null;
+    }
+
+    private static boolean isPoint(List<COSBase> operands, int i) {
+        return operands.get(i) instanceof COSNumber && operands.get(i + 1) instanceof COSNumber;
+    }
+
+    private static float number(COSBase operand) {
+        return ((COSNumber) operand).floatValue();
+    }
+
+}
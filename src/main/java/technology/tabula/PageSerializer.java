@@ -0,0 +1,337 @@
+package technology.tabula;
+
+import java.awt.geom.Point2D;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+/**
+ * Reads and writes the geometry of a Page (its text elements and ruling lines)
+ * in a compact binary format, so that extracting tables doesn't need the
+ * source PDF.
+ *
+ * The format is versioned. After a header with the page's bounds, rotation,
+ * number and minimum character size come
+ * <ul>
+ * <li>a table of font names and one of (font, font size) pairs</li>
+ * <li>the text elements, as one float column per coordinate and a column of
+ * indices into the (font, font size) table</li>
+ * <li>their text, as a pool of UTF-16 code units and the length of each text</li>
+ * <li>the order of the text elements in the page's spatial index</li>
+ * <li>the unprocessed ruling lines, as one float column per coordinate</li>
+ * </ul>
+ * All numbers are big-endian.
+ *
+ * A Page read back has no PDPage, keeps its text in a TextElementStore, and
+ * its text elements have placeholder fonts that only carry the font name (one
+ * instance per font of the page).
+ */
+public class PageSerializer {
+
+    private static final int MAGIC = 0x54425047; // TBPG
+    public static final int VERSION = 1;
+
+    /**
+     * Writes page to out, and flushes it. out is not closed.
+     */
+    public static void write(Page page, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        List<TextElement> texts = page.getText() == null ? new ArrayList<TextElement>() : page.getText();
+        List<Ruling> rulings = page.getUnprocessedRulings() == null ? new ArrayList<Ruling>() : page.getUnprocessedRulings();
+        int n = texts.size();
+
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeFloat(page.getTop());
+        data.writeFloat(page.getLeft());
+        data.writeFloat((float) page.getWidth());
+        data.writeFloat((float) page.getHeight());
+        data.writeInt(page.getRotation() == null ? 0 : page.getRotation());
+        data.writeInt(page.getPageNumber());
+        data.writeFloat(page.getMinCharWidth());
+        data.writeFloat(page.getMinCharHeight());
+
+        // fonts by identity, then distinct (font, size) pairs
+        Map<PDFont, Integer> fonts = new IdentityHashMap<PDFont, Integer>();
+        List<String> fontNames = new ArrayList<String>();
+        Map<Long, Integer> styles = new HashMap<Long, Integer>();
+        List<Long> styleList = new ArrayList<Long>();
+        int[] styleIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            TextElement te = texts.get(i);
+            Integer font = fonts.get(te.getFont());
+            if (font == null) {
+                font = fontNames.size();
+                fonts.put(te.getFont(), font);
+                // null stands for no font at all
+                fontNames.add(te.getFont() == null ? null
+                        : te.getFont().getBaseFont() == null ? "" : te.getFont().getBaseFont());
+            }
+            Long style = ((long) font << 32) | (java.lang.Float.floatToIntBits(te.getFontSize()) & 0xffffffffL);
+            Integer id = styles.get(style);
+            if (id == null) {
+                id = styleList.size();
+                styles.put(style, id);
+                styleList.add(style);
+            }
+            styleIds[i] = id;
+        }
+        data.writeInt(fontNames.size());
+        for (String name: fontNames) {
+            data.writeBoolean(name != null);
+            if (name != null) {
+                data.writeUTF(name);
+            }
+        }
+        data.writeInt(styleList.size());
+        for (long style: styleList) {
+            data.writeInt((int) (style >>> 32));
+            data.writeFloat(java.lang.Float.intBitsToFloat((int) style));
+        }
+
+        float[] x = new float[n], y = new float[n], w = new float[n], h = new float[n];
+        float[] widthOfSpace = new float[n], dir = new float[n];
+        int[] lengths = new int[n];
+        StringBuilder pool = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            TextElement te = texts.get(i);
+            x[i] = te.x;
+            y[i] = te.y;
+            w[i] = te.width;
+            h[i] = te.height;
+            widthOfSpace[i] = te.getWidthOfSpace();
+            dir[i] = te.getDirection();
+            lengths[i] = te.getText().length();
+            pool.append(te.getText());
+        }
+        data.writeInt(n);
+        writeFloats(data, x);
+        writeFloats(data, y);
+        writeFloats(data, w);
+        writeFloats(data, h);
+        writeFloats(data, widthOfSpace);
+        writeFloats(data, dir);
+        writeInts(data, styleIds);
+        writeInts(data, lengths);
+        data.writeInt(pool.length());
+        data.writeChars(pool.toString());
+
+        // the order in which text elements were added to the spatial index decides
+        // the order of its results. An area shares the index of its page, so
+        // elements outside of the area are left out
+        // elements are matched with equals, the elements of a TextElementStore
+        // are created again on every get. Equal elements are taken in order
+        Map<TextElement, LinkedList<Integer>> positions = new HashMap<TextElement, LinkedList<Integer>>();
+        for (int i = 0; i < n; i++) {
+            TextElement te = texts.get(i);
+            LinkedList<Integer> p = positions.get(te);
+            if (p == null) {
+                p = new LinkedList<Integer>();
+                positions.put(te, p);
+            }
+            p.add(i);
+        }
+        List<TextElement> indexed = page.getSpatialIndex() == null ? texts : page.getSpatialIndex().getRectangles();
+        int[] order = new int[n];
+        int k = 0;
+        for (TextElement te: indexed) {
+            LinkedList<Integer> p = positions.get(te);
+            if (p != null && !p.isEmpty()) {
+                order[k++] = p.removeFirst();
+            }
+        }
+        data.writeInt(k);
+        writeInts(data, Arrays.copyOf(order, k));
+
+        int m = rulings.size();
+        float[] x1 = new float[m], y1 = new float[m], x2 = new float[m], y2 = new float[m];
+        for (int i = 0; i < m; i++) {
+            Ruling r = rulings.get(i);
+            x1[i] = r.x1;
+            y1[i] = r.y1;
+            x2[i] = r.x2;
+            y2[i] = r.y2;
+        }
+        data.writeInt(m);
+        writeFloats(data, x1);
+        writeFloats(data, y1);
+        writeFloats(data, x2);
+        writeFloats(data, y2);
+
+        data.flush();
+    }
+
+    /**
+     * Reads a page written by write. Doesn't read past the end of the page, so
+     * several pages can be read from the same stream; in is not buffered here.
+     */
+    public static Page read(InputStream in) throws IOException {
+        return read(in, null);
+    }
+
+    /**
+     * Reads a page written by write and attaches pdPage to it
+     */
+    public static Page read(InputStream in, PDPage pdPage) throws IOException {
+        return read(in, pdPage, null);
+    }
+
+    /**
+     * @param pageNumber overrides the page number that was written, if not null
+     */
+    static Page read(InputStream in, PDPage pdPage, Integer pageNumber) throws IOException {
+        DataInputStream data = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a serialized page");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported serialized page version " + version);
+        }
+        float top = data.readFloat();
+        float left = data.readFloat();
+        float width = data.readFloat();
+        float height = data.readFloat();
+        int rotation = data.readInt();
+        int storedPageNumber = data.readInt();
+        float minCharWidth = data.readFloat();
+        float minCharHeight = data.readFloat();
+
+        // counts and indices come from the data, which may be corrupt: arrays
+        // are only allocated for what could be read, and indices are checked
+        int fontCount = readCount(data);
+        List<PDFont> fonts = new ArrayList<PDFont>();
+        for (int i = 0; i < fontCount; i++) {
+            PDFont font = null;
+            if (data.readBoolean()) {
+                PDType1Font type1Font = new PDType1Font();
+                type1Font.setBaseFont(data.readUTF());
+                font = type1Font;
+            }
+            fonts.add(font);
+        }
+        int styleCount = readCount(data);
+        List<PDFont> styleFonts = new ArrayList<PDFont>();
+        List<java.lang.Float> styleSizes = new ArrayList<java.lang.Float>();
+        for (int i = 0; i < styleCount; i++) {
+            styleFonts.add(fonts.get(checkIndex(data.readInt(), fonts.size())));
+            styleSizes.add(data.readFloat());
+        }
+
+        int n = readCount(data);
+        float[] x = readFloats(data, n), y = readFloats(data, n), w = readFloats(data, n), h = readFloats(data, n);
+        float[] widthOfSpace = readFloats(data, n), dir = readFloats(data, n);
+        int[] styleIds = readInts(data, n), lengths = readInts(data, n);
+        char[] pool = readChars(data, readCount(data));
+
+        TextElementStore texts = new TextElementStore(n);
+        int offset = 0;
+        for (int i = 0; i < n; i++) {
+            int style = checkIndex(styleIds[i], styleCount);
+            if (lengths[i] < 0 || lengths[i] > pool.length - offset) {
+                throw new IOException("Corrupt serialized page");
+            }
+            texts.add(y[i], x[i], w[i], h[i], styleFonts.get(style), styleSizes.get(style),
+                    new String(pool, offset, lengths[i]), widthOfSpace[i], dir[i]);
+            offset += lengths[i];
+        }
+
+        int[] order = readInts(data, readCount(data));
+        for (int i: order) {
+            checkIndex(i, n);
+        }
+        RectangleSpatialIndex<TextElement> spatialIndex = new RectangleSpatialIndex<TextElement>(texts.snapshot(), order);
+
+        int m = readCount(data);
+        float[] x1 = readFloats(data, m), y1 = readFloats(data, m), x2 = readFloats(data, m), y2 = readFloats(data, m);
+        List<Ruling> rulings = new ArrayList<Ruling>(m);
+        for (int i = 0; i < m; i++) {
+            // set the coordinates again, they were normalized when extracted
+            Ruling r = new Ruling(new Point2D.Float(x1[i], y1[i]), new Point2D.Float(x2[i], y2[i]));
+            r.setLine(x1[i], y1[i], x2[i], y2[i]);
+            rulings.add(r);
+        }
+
+        return new Page(top, left, width, height, rotation, pageNumber == null ? storedPageNumber : pageNumber,
+                pdPage, texts, rulings, minCharWidth, minCharHeight, spatialIndex);
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        buffer.asFloatBuffer().put(values);
+        out.write(buffer.array());
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        buffer.asIntBuffer().put(values);
+        out.write(buffer.array());
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        return checkIndex(in.readInt(), Integer.MAX_VALUE);
+    }
+
+    private static int checkIndex(int i, int size) throws IOException {
+        if (i < 0 || i >= size) {
+            throw new IOException("Corrupt serialized page");
+        }
+        return i;
+    }
+
+    private static float[] readFloats(DataInputStream in, int n) throws IOException {
+        ByteBuffer bytes = readBytes(in, n * 4L);
+        float[] rv = new float[n];
+        bytes.asFloatBuffer().get(rv);
+        return rv;
+    }
+
+    private static int[] readInts(DataInputStream in, int n) throws IOException {
+        ByteBuffer bytes = readBytes(in, n * 4L);
+        int[] rv = new int[n];
+        bytes.asIntBuffer().get(rv);
+        return rv;
+    }
+
+    private static char[] readChars(DataInputStream in, int n) throws IOException {
+        ByteBuffer bytes = readBytes(in, n * 2L);
+        char[] rv = new char[n];
+        bytes.asCharBuffer().get(rv);
+        return rv;
+    }
+
+    // read in growing chunks, so that a wrong length ends with an EOFException
+    // rather than with an array of that length
+    private static ByteBuffer readBytes(DataInputStream in, long n) throws IOException {
+        if (n < 0 || n > Integer.MAX_VALUE - 8) {
+            throw new IOException("Corrupt serialized page");
+        }
+        byte[] bytes = new byte[(int) Math.min(n, 1 << 16)];
+        int read = 0;
+        while (read < n) {
+            if (read == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(n, 2L * bytes.length));
+            }
+            in.readFully(bytes, read, bytes.length - read);
+            read = bytes.length;
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+}
@@ -0,0 +1,157 @@
+package technology.tabula;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Extracts the pages of a document concurrently.
+ *
+ * ObjectExtractor keeps per-page state in instance fields and PDFBox documents
+ * are not thread safe, so pages are split in contiguous shards and every shard
+ * is handled by a worker that owns its own PDDocument and ObjectExtractor.
+ * Pages are returned in the order they were requested.
+ *
+ * Any ExecutorService can be used to run the workers (a ForkJoinPool, for instance).
+ * Documents opened by the workers stay open until close() is called, so the
+ * returned Pages can still be rendered (as NurminenDetectionAlgorithm does).
+ */
+public class ParallelPageExtractor {
+
+    private final File pdfFile;
+    private final String password;
+    private final boolean extractRulingLines;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int parallelism;
+    private final List<PDDocument> openDocuments = Collections.synchronizedList(new ArrayList<PDDocument>());
+    private int pageCount = -1;
+
+    public ParallelPageExtractor(File pdfFile) {
+        this(pdfFile, null, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelPageExtractor(File pdfFile, String password, int parallelism) {
+        this(pdfFile, password, true, Executors.newFixedThreadPool(parallelism), parallelism, true);
+    }
+
+    public ParallelPageExtractor(File pdfFile, String password, boolean extractRulingLines,
+            ExecutorService executor, int parallelism) {
+        this(pdfFile, password, extractRulingLines, executor, parallelism, false);
+    }
+
+    private ParallelPageExtractor(File pdfFile, String password, boolean extractRulingLines,
+            ExecutorService executor, int parallelism, boolean ownsExecutor) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+        this.pdfFile = pdfFile;
+        this.password = password;
+        this.extractRulingLines = extractRulingLines;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Extract every page of the document
+     */
+    public List<Page> extract() throws IOException {
+        return extract(Utils.range(1, this.getPageCount() + 1));
+    }
+
+    /**
+     * Extract the given pages (1-based), in order
+     */
+    public List<Page> extract(List<Integer> pages) throws IOException {
+        List<Page> rv = new ArrayList<Page>(pages.size());
+        if (pages.isEmpty()) {
+            return rv;
+        }
+
+        int shards = Math.min(this.parallelism, pages.size());
+        int shardSize = (pages.size() + shards - 1) / shards;
+
+        List<Future<List<Page>>> futures = new ArrayList<Future<List<Page>>>(shards);
+        for (int i = 0; i < pages.size(); i += shardSize) {
+            final List<Integer> shard = pages.subList(i, Math.min(i + shardSize, pages.size()));
+            futures.add(this.executor.submit(new Callable<List<Page>>() {
+                @Override
+                public List<Page> call() throws Exception {
+                    return extractShard(shard);
+                }
+            }));
+        }
+
+        try {
+            for (Future<List<Page>> f: futures) {
+                rv.addAll(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting pages");
+        } catch (ExecutionException e) {
+            for (Future<List<Page>> f: futures) {
+                f.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause.getMessage());
+        }
+        return rv;
+    }
+
+    public int getPageCount() throws IOException {
+        if (this.pageCount < 0) {
+            ObjectExtractor oe = this.createObjectExtractor();
+            this.pageCount = oe.getPageCount();
+        }
+        return this.pageCount;
+    }
+
+    /**
+     * Closes the documents opened by the workers and, if it was created
+     * by this ParallelPageExtractor, shuts down the thread pool
+     */
+    public void close() throws IOException {
+        if (this.ownsExecutor) {
+            this.executor.shutdown();
+        }
+        synchronized (this.openDocuments) {
+            for (PDDocument document: this.openDocuments) {
+                document.close();
+            }
+            this.openDocuments.clear();
+        }
+    }
+
+    private List<Page> extractShard(List<Integer> shard) throws IOException {
+        ObjectExtractor oe = this.createObjectExtractor();
+        List<Page> rv = new ArrayList<Page>(shard.size());
+        for (Integer pageNumber: shard) {
+            rv.add(oe.extractPage(pageNumber));
+        }
+        return rv;
+    }
+
+    private ObjectExtractor createObjectExtractor() throws IOException {
+        PDDocument document = PDDocument.load(this.pdfFile);
+        this.openDocuments.add(document);
+        return new ObjectExtractor(document, this.password, this.extractRulingLines, false);
+    }
+
+}
@@ -1,88 +1,319 @@
 package technology.tabula;
 
-import gnu.trove.procedure.TIntProcedure;
-
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
-import net.sf.jsi.SpatialIndex;
-import net.sf.jsi.rtree.RTree;
-
+/**
+ * Read-optimized spatial index for Rectangles.
+ *
+ * Rectangles are added one at a time but the index itself is a packed R-tree
+ * that is bulk built (sorting the entries along a Hilbert curve) the first time
+ * it's queried after an add. Coordinates are kept in primitive arrays, so
+ * queries don't allocate rectangles or box ids.
+ */
 class RectangleSpatialIndex<T extends Rectangle> {
-    
-    class SaveToListProcedure implements TIntProcedure {
-        private List<Integer> ids = new ArrayList<Integer>();
 
-        public boolean execute(int id) {
-          ids.add(id);
-          return true;
-        };
-        
-        private List<Integer> getIds() {
-          return ids;
-        }
-    };
-	
-    private final SpatialIndex si;
+    private static final int NODE_SIZE = 16;
+    private static final int HILBERT_MAX = (1 << 10) - 1;
+
     private final List<T> rectangles;
+    // for an index over an existing list: position in rectangles of each entry, in insertion order
+    private final int[] refs;
+    private float[] itemBoxes = new float[64];
     private Rectangle bounds = null;
-    
+
+    // packed tree: leaf entries first, then every upper level up to the root.
+    // boxes holds minX, minY, maxX, maxY for each entry. For leaf entries,
+    // indices holds the insertion number of the rectangle; for nodes,
+    // the entry number of its first child.
+    private float[] boxes;
+    private int[] indices;
+    private int[] levelBounds;
+    private boolean built = false;
+
     public RectangleSpatialIndex() {
-        si = new RTree();
-        si.init(null);
         rectangles = new ArrayList<T>();
+        refs = null;
+    }
+
+    /**
+     * Index over an existing list, as if rectangles.get(order[0]),
+     * rectangles.get(order[1])... had been added. rectangles must not change
+     * afterwards, and rectangles can't be added to the index.
+     */
+    RectangleSpatialIndex(List<T> rectangles, int[] order) {
+        this.rectangles = rectangles;
+        this.refs = order;
+        this.itemBoxes = new float[Math.max(order.length * 4, 4)];
+        TextElementStore store = rectangles instanceof TextElementStore ? (TextElementStore) rectangles : null;
+        for (int i = 0; i < order.length; i++) {
+            Rectangle box;
+            if (store != null) {
+                // don't create a TextElement per entry
+                int j = order[i];
+                box = new Rectangle(store.getY(j), store.getX(j), store.getWidth(j), store.getHeight(j));
+            }
+            else {
+                box = new Rectangle();
+                box.setRect(rectangles.get(order[i]));
+            }
+            int b = i * 4;
+            itemBoxes[b] = (float) box.getX();
+            itemBoxes[b + 1] = (float) box.getY();
+            itemBoxes[b + 2] = (float) (box.getX() + box.getWidth());
+            itemBoxes[b + 3] = (float) (box.getY() + box.getHeight());
+            if (bounds == null) {
+                bounds = box;
+            }
+            else {
+                bounds.merge(box);
+            }
+        }
     }
-    
+
     public void add(T te) {
+        if (refs != null) {
+            throw new UnsupportedOperationException("Can't add to an index over an existing list");
+        }
+        int b = rectangles.size() * 4;
+        if (b == itemBoxes.length) {
+            itemBoxes = Arrays.copyOf(itemBoxes, b * 2);
+        }
+        itemBoxes[b] = (float) te.getX();
+        itemBoxes[b + 1] = (float) te.getY();
+        itemBoxes[b + 2] = (float) (te.getX() + te.getWidth());
+        itemBoxes[b + 3] = (float) (te.getY() + te.getHeight());
         rectangles.add(te);
         if (bounds == null) {
             bounds = new Rectangle();
             bounds.setRect(te);
         }
         else {
-            bounds.merge(te);            
+            bounds.merge(te);
         }
-        si.add(rectangleToSpatialIndexRectangle(te), rectangles.size() - 1);
+        built = false;
     }
-    
+
+    /**
+     * Rectangles completely contained in r
+     */
     public List<T> contains(Rectangle r) {
-        SaveToListProcedure proc = new SaveToListProcedure();
-        si.contains(rectangleToSpatialIndexRectangle(r), proc);
-        ArrayList<T> rv = new ArrayList<T>();
-        for (int i : proc.getIds()) {
-            rv.add(rectangles.get(i));
-        }
-        Utils.sort(rv);
-        return rv;
+        return this.search(r, true);
     }
-    
-    public List<T> intersects(Rectangle r) {
-        SaveToListProcedure proc = new SaveToListProcedure();
-        si.intersects(rectangleToSpatialIndexRectangle(r), proc);
-        ArrayList<T> rv = new ArrayList<T>();
-        for (int i : proc.getIds()) {
-            rv.add(rectangles.get(i));
-        }
-        Utils.sort(rv);
-        return rv;
+
+    /**
+     * Rectangles completely contained in the box from (minX, minY) to (maxX, maxY)
+     */
+    List<T> contains(float minX, float minY, float maxX, float maxY) {
+        return this.search(minX, minY, maxX, maxY, true);
     }
-    
-    private net.sf.jsi.Rectangle rectangleToSpatialIndexRectangle(Rectangle r) {
-        return new net.sf.jsi.Rectangle((float) r.getX(),
-                (float) r.getY(),
-                (float) (r.getX() + r.getWidth()),
-                (float) (r.getY() + r.getHeight()));
+
+    /**
+     * Rectangles that intersect r
+     */
+    public List<T> intersects(Rectangle r) {
+        return this.search(r, false);
     }
 
-    
     /**
      * Minimum bounding box of all the Rectangles contained on this RectangleSpatialIndex
-     * 
+     *
      * @return a Rectangle
      */
     public Rectangle getBounds() {
         return bounds;
     }
 
+    /**
+     * Every Rectangle in this index, in the order they were added
+     */
+    List<T> getRectangles() {
+        if (refs == null) {
+            return rectangles;
+        }
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                return rectangles.get(refs[index]);
+            }
+
+            @Override
+            public int size() {
+                return refs.length;
+            }
+        };
+    }
+
+    private int size() {
+        return refs == null ? rectangles.size() : refs.length;
+    }
+
+    private List<T> search(Rectangle r, boolean contained) {
+        return this.search((float) r.getX(), (float) r.getY(), (float) (r.getX() + r.getWidth()),
+                (float) (r.getY() + r.getHeight()), contained);
+    }
+
+    private List<T> search(float minX, float minY, float maxX, float maxY, boolean contained) {
+        ArrayList<T> rv = new ArrayList<T>();
+        if (this.size() == 0) {
+            return rv;
+        }
+        if (!built) {
+            this.build();
+        }
+
+        int numItems = this.size();
+
+        int[] found = new int[16];
+        int foundCount = 0;
+        int[] stack = new int[16];
+        int stackSize = 0;
+
+        // start with the root, which is the last entry
+        int nodeIndex = indices.length - 1;
+        int level = levelBounds.length - 1;
+
+        while (true) {
+            int end = Math.min(nodeIndex + NODE_SIZE, levelBounds[level]);
+            for (int pos = nodeIndex; pos < end; pos++) {
+                int b = pos * 4;
+                if (boxes[b + 2] < minX || boxes[b] > maxX || boxes[b + 3] < minY || boxes[b + 1] > maxY) {
+                    continue;
+                }
+                if (nodeIndex >= numItems) {
+                    if (stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, stackSize * 2);
+                    }
+                    stack[stackSize++] = indices[pos];
+                }
+                else if (!contained || (boxes[b] >= minX && boxes[b + 2] <= maxX && boxes[b + 1] >= minY && boxes[b + 3] <= maxY)) {
+                    if (foundCount == found.length) {
+                        found = Arrays.copyOf(found, foundCount * 2);
+                    }
+                    found[foundCount++] = indices[pos];
+                }
+            }
+            if (stackSize == 0) {
+                break;
+            }
+            nodeIndex = stack[--stackSize];
+            level = levelOf(nodeIndex);
+        }
+
+        // report in insertion order, so results don't depend on the shape of the tree
+        Arrays.sort(found, 0, foundCount);
+        rv.ensureCapacity(foundCount);
+        for (int i = 0; i < foundCount; i++) {
+            rv.add(rectangles.get(refs == null ? found[i] : refs[found[i]]));
+        }
+        Utils.sort(rv);
+        return rv;
+    }
+
+    private int levelOf(int entry) {
+        int level = 0;
+        while (levelBounds[level] <= entry) {
+            level++;
+        }
+        return level;
+    }
+
+    private void build() {
+        int numItems = this.size();
+
+        // count entries of every level
+        List<Integer> levels = new ArrayList<Integer>();
+        int n = numItems;
+        int numEntries = n;
+        levels.add(numEntries);
+        do {
+            n = (n + NODE_SIZE - 1) / NODE_SIZE;
+            numEntries += n;
+            levels.add(numEntries);
+        } while (n != 1);
+
+        levelBounds = new int[levels.size()];
+        for (int i = 0; i < levelBounds.length; i++) {
+            levelBounds[i] = levels.get(i);
+        }
+        boxes = new float[numEntries * 4];
+        indices = new int[numEntries];
+
+        // sort the rectangles by the hilbert value of their centers
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < numItems; i++) {
+            int b = i * 4;
+            minX = Math.min(minX, itemBoxes[b]);
+            minY = Math.min(minY, itemBoxes[b + 1]);
+            maxX = Math.max(maxX, itemBoxes[b + 2]);
+            maxY = Math.max(maxY, itemBoxes[b + 3]);
+        }
+
+        float width = maxX - minX > 0 ? maxX - minX : 1;
+        float height = maxY - minY > 0 ? maxY - minY : 1;
+        long[] keys = new long[numItems];
+        for (int i = 0; i < numItems; i++) {
+            int b = i * 4;
+            int x = (int) (HILBERT_MAX * ((itemBoxes[b] + itemBoxes[b + 2]) / 2 - minX) / width);
+            int y = (int) (HILBERT_MAX * ((itemBoxes[b + 1] + itemBoxes[b + 3]) / 2 - minY) / height);
+            keys[i] = ((long) hilbert(x, y) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        for (int i = 0; i < numItems; i++) {
+            int id = (int) keys[i];
+            System.arraycopy(itemBoxes, id * 4, boxes, i * 4, 4);
+            indices[i] = id;
+        }
+
+        // pack every level into parent nodes of NODE_SIZE entries
+        int pos = 0;
+        int entry = numItems;
+        for (int level = 0; level < levelBounds.length - 1; level++) {
+            int end = levelBounds[level];
+            while (pos < end) {
+                float nMinX = Float.MAX_VALUE, nMinY = Float.MAX_VALUE;
+                float nMaxX = -Float.MAX_VALUE, nMaxY = -Float.MAX_VALUE;
+                int first = pos;
+                for (int i = 0; i < NODE_SIZE && pos < end; i++, pos++) {
+                    int b = pos * 4;
+                    nMinX = Math.min(nMinX, boxes[b]);
+                    nMinY = Math.min(nMinY, boxes[b + 1]);
+                    nMaxX = Math.max(nMaxX, boxes[b + 2]);
+                    nMaxY = Math.max(nMaxY, boxes[b + 3]);
+                }
+                int b = entry * 4;
+                boxes[b] = nMinX;
+                boxes[b + 1] = nMinY;
+                boxes[b + 2] = nMaxX;
+                boxes[b + 3] = nMaxY;
+                indices[entry++] = first;
+            }
+        }
+        built = true;
+    }
+
+    // position of (x, y) along a Hilbert curve filling a (HILBERT_MAX + 1)^2 grid
+    private static int hilbert(int x, int y) {
+        int d = 0;
+        for (int s = (HILBERT_MAX + 1) / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = HILBERT_MAX - x;
+                    y = HILBERT_MAX - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
 }
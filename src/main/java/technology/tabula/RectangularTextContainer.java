@@ -32,4 +32,12 @@ public abstract class RectangularTextContainer<T extends HasText> extends Rectan
     public abstract String getText();
     public abstract String getText(boolean useLineReturns);
     public abstract List<T> getTextElements();
+
+    /**
+     * Appends getText() to sb, without making a String of it where the
+     * container can avoid it
+     */
+    public void appendText(StringBuilder sb) {
+        sb.append(this.getText());
+    }
 }
@@ -1,7 +1,10 @@
 package technology.tabula;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.TreeMap;
 
 import technology.tabula.extractors.ExtractionAlgorithm;
@@ -48,38 +51,155 @@ public class Table extends Rectangle {
         }
     }
     
-    class CellContainer extends TreeMap<CellPosition, RectangularTextContainer> {
-        
+    /**
+     * The cells of a table by row and column. Every row keeps its first
+     * DENSE_COLUMNS columns in an array that grows as cells are added; cells
+     * further right, which only very wide tables have, go to a sorted map.
+     */
+    class CellContainer {
+
+        private static final int DENSE_COLUMNS = 1024;
+
         public int maxRow = 0, maxCol = 0;
-        
+        private RectangularTextContainer[][] dense = new RectangularTextContainer[8][];
+        private TreeMap<CellPosition, RectangularTextContainer> sparse = null;
+        private int size = 0;
+
         public RectangularTextContainer get(int row, int col) {
-            return this.get(new CellPosition(row, col));
+            RectangularTextContainer rv = this.find(row, col);
+            return rv == null ? TextChunk.EMPTY : rv;
         }
-        
-        public List<RectangularTextContainer> getRow(int row) {
-            return new ArrayList<RectangularTextContainer>(this.subMap(new CellPosition(row, 0), new CellPosition(row, maxRow+1)).values());
+
+        public boolean containsKey(int row, int col) {
+            return this.find(row, col) != null;
         }
-        
-        @Override
-        public RectangularTextContainer put(CellPosition cp, RectangularTextContainer value) {
-            this.maxRow = Math.max(maxRow, cp.row);
-            this.maxCol = Math.max(maxCol, cp.col);
-            if (this.containsKey(cp)) { // adding on an existing CellPosition, concatenate content and resize
-                value.merge(this.get(cp));
+
+        /**
+         * Adds value at (row, col). If there's a cell there already, value
+         * takes its content and size too.
+         */
+        public RectangularTextContainer put(int row, int col, RectangularTextContainer value) {
+            if (row < 0 || col < 0) {
+                throw new IndexOutOfBoundsException("Row: " + row + ", Column: " + col);
+            }
+            this.maxRow = Math.max(maxRow, row);
+            this.maxCol = Math.max(maxCol, col);
+            RectangularTextContainer previous = this.find(row, col);
+            if (previous != null) { // adding on an existing position, concatenate content and resize
+                value.merge(previous);
+            }
+            else {
+                this.size++;
+            }
+
+            if (col >= DENSE_COLUMNS) {
+                if (this.sparse == null) {
+                    this.sparse = new TreeMap<CellPosition, RectangularTextContainer>();
+                }
+                this.sparse.put(new CellPosition(row, col), value);
+                return value;
+            }
+            if (row >= this.dense.length) {
+                this.dense = Arrays.copyOf(this.dense, Math.max(row + 1, this.dense.length * 2));
             }
-            super.put(cp, value);
+            RectangularTextContainer[] cells = this.dense[row];
+            if (cells == null) {
+                cells = this.dense[row] = new RectangularTextContainer[Math.min(DENSE_COLUMNS, Math.max(col + 1, 8))];
+            }
+            else if (col >= cells.length) {
+                cells = this.dense[row] = Arrays.copyOf(cells, Math.min(DENSE_COLUMNS, Math.max(col + 1, cells.length * 2)));
+            }
+            cells[col] = value;
             return value;
         }
-        
+
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * The cells, by row and then by column
+         */
+        public List<RectangularTextContainer> values() {
+            List<RectangularTextContainer> rv = new ArrayList<RectangularTextContainer>(this.size);
+            for (int row = 0; row < this.dense.length; row++) {
+                if (this.dense[row] != null) {
+                    for (RectangularTextContainer cell: this.dense[row]) {
+                        if (cell != null) {
+                            rv.add(cell);
+                        }
+                    }
+                }
+                if (this.sparse != null) {
+                    rv.addAll(this.sparse.subMap(new CellPosition(row, 0), new CellPosition(row + 1, 0)).values());
+                }
+            }
+            if (this.sparse != null) {
+                // rows with only sparse cells, past the dense ones
+                rv.addAll(this.sparse.tailMap(new CellPosition(this.dense.length, 0)).values());
+            }
+            return rv;
+        }
+
+        private RectangularTextContainer find(int row, int col) {
+            if (col >= DENSE_COLUMNS) {
+                return this.sparse == null ? null : this.sparse.get(new CellPosition(row, col));
+            }
+            if (row < 0 || col < 0 || row >= this.dense.length) {
+                return null;
+            }
+            RectangularTextContainer[] cells = this.dense[row];
+            return cells == null || col >= cells.length ? null : cells[col];
+        }
+
+    }
+
+    /**
+     * A row of the table, as it is when read: maxCol + 1 cells, TextChunk.EMPTY where there's none
+     */
+    private class RowView extends AbstractList<RectangularTextContainer> implements RandomAccess {
+        private final int row;
+
+        RowView(int row) {
+            this.row = row;
+        }
+
         @Override
-        public RectangularTextContainer get(Object key) {
-            return this.containsKey(key) ? super.get(key) : TextChunk.EMPTY;
+        public RectangularTextContainer get(int index) {
+            if (index < 0 || index > cellContainer.maxCol) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+            }
+            return cellContainer.get(this.row, index);
         }
-        
-        public boolean containsKey(int row, int col) {
-            return this.containsKey(new CellPosition(row, col));
+
+        @Override
+        public int size() {
+            return cellContainer.maxCol + 1;
+        }
+    }
+
+    /**
+     * A column of the table, as it is when read: maxRow + 1 cells, TextChunk.EMPTY where there's none
+     */
+    private class ColumnView extends AbstractList<RectangularTextContainer> implements RandomAccess {
+        private final int col;
+
+        ColumnView(int col) {
+            this.col = col;
+        }
+
+        @Override
+        public RectangularTextContainer get(int index) {
+            if (index < 0 || index > cellContainer.maxRow) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+            }
+            return cellContainer.get(index, this.col);
+        }
+
+        @Override
+        public int size() {
+            return cellContainer.maxRow + 1;
         }
-        
     }
     
     public static final Table EMPTY = new Table();
@@ -87,7 +207,6 @@ public class Table extends Rectangle {
     CellContainer cellContainer = new CellContainer();
     Page page;
     ExtractionAlgorithm extractionAlgorithm;
-    List<List<RectangularTextContainer>> rows = null;
     
     public Table() {
         super();
@@ -101,32 +220,60 @@ public class Table extends Rectangle {
 
     public void add(RectangularTextContainer tc, int i, int j) {
         this.merge(tc);
-        this.cellContainer.put(new CellPosition(i, j), tc);
-        this.rows = null; // clear the memoized rows
+        this.cellContainer.put(i, j, tc);
     }
     
+    /**
+     * The rows of the table, every one with as many cells as the table has
+     * columns (TextChunk.EMPTY where there's none). These are views of the
+     * table, not copies: they show the cells added later too.
+     */
     public List<List<RectangularTextContainer>> getRows() {
-        if (this.rows != null) {
-            return this.rows;
-        }
-        
-        this.rows = new ArrayList<List<RectangularTextContainer>>();
-        for (int i = 0; i <= this.cellContainer.maxRow; i++) {
-            List<RectangularTextContainer> lastRow = new ArrayList<RectangularTextContainer>(); 
-            this.rows.add(lastRow);
-            for (int j = 0; j <= this.cellContainer.maxCol; j++) {
-                lastRow.add(this.cellContainer.containsKey(i, j) ? this.cellContainer.get(i, j) : TextChunk.EMPTY);
+        return new AbstractList<List<RectangularTextContainer>>() {
+            @Override
+            public List<RectangularTextContainer> get(int index) {
+                if (index < 0 || index > cellContainer.maxRow) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+                }
+                return new RowView(index);
             }
-        }
-        return this.rows;
+
+            @Override
+            public int size() {
+                return cellContainer.maxRow + 1;
+            }
+        };
     }
     
     public RectangularTextContainer getCell(int i, int j) {
         return this.cellContainer.get(i, j);
     }
     
+    /**
+     * The columns of the table, as views like getRows
+     */
     public List<List<RectangularTextContainer>> getCols() {
-        return Utils.transpose(this.getRows());
+        return new AbstractList<List<RectangularTextContainer>>() {
+            @Override
+            public List<RectangularTextContainer> get(int index) {
+                if (index < 0 || index > cellContainer.maxCol) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+                }
+                return new ColumnView(index);
+            }
+
+            @Override
+            public int size() {
+                return cellContainer.maxCol + 1;
+            }
+        };
+    }
+    
+    /**
+     * The page (or area of a page) the table was extracted from, null if none
+     */
+    public Page getPage() {
+        return page;
     }
     
     public void setExtractionAlgorithm(ExtractionAlgorithm extractionAlgorithm) {
@@ -138,7 +285,7 @@ public class Table extends Rectangle {
     }
     
     public List<RectangularTextContainer> getCells() {
-        return (List<RectangularTextContainer>) new ArrayList<RectangularTextContainer>(this.cellContainer.values());
+        return this.cellContainer.values();
     }
     
     
@@ -1,6 +1,7 @@
 package technology.tabula;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -10,7 +11,6 @@ import java.util.List;
 public class TableWithRulingLines extends Table {
 
     List<Ruling> verticalRulings, horizontalRulings;
-    RectangleSpatialIndex<Cell> si = new RectangleSpatialIndex<Cell>();
     
     public TableWithRulingLines() {
         super();
@@ -33,29 +33,124 @@ public class TableWithRulingLines extends Table {
             return;
         } 
         
-        for (Cell ce: cells) {
-            si.add(ce);
-        }
-        
         List<List<Cell>> rowsOfCells = rowsOfCells(cells);
+        int[] startColumns = startColumns(rowsOfCells);
         for (int i = 0; i < rowsOfCells.size(); i++) {
-            List<Cell> row = rowsOfCells.get(i);
-            Iterator<Cell> rowCells = row.iterator();
-            Cell cell = rowCells.next();
-            List<List<Cell>> others = rowsOfCells(
-                    si.contains(
-                            new Rectangle(cell.getBottom(), si.getBounds().getLeft(), cell.getLeft() - si.getBounds().getLeft(), 
-                                    si.getBounds().getBottom() - cell.getBottom())
-                            ));
-            int startColumn = 0;
-            for (List<Cell> r: others) {
-                startColumn = Math.max(startColumn, r.size());
+            int startColumn = startColumns[i];
+            for (Cell cell: rowsOfCells.get(i)) {
+                this.add(cell, i, startColumn++);
+            }
+        }
+    }
+
+    /**
+     * The column of the first cell of every row: the largest number of cells
+     * left of it in a row below it (rows that a cell on the left spans into
+     * start further right).
+     *
+     * The rows are added from the bottom up to a Fenwick tree over the right
+     * edges of the cells, that keeps the largest count of cells of a row
+     * ending at or before each edge. Edges are compared as in a
+     * RectangleSpatialIndex, as floats.
+     */
+    private static int[] startColumns(List<List<Cell>> rows) {
+        float left = java.lang.Float.MAX_VALUE;
+        int cellCount = 0;
+        for (List<Cell> row: rows) {
+            for (Cell cell: row) {
+                left = Math.min(left, cell.getLeft());
+                cellCount++;
+            }
+        }
+
+        float[] edges = new float[cellCount];
+        int e = 0;
+        for (List<Cell> row: rows) {
+            for (Cell cell: row) {
+                edges[e++] = right(cell);
+            }
+        }
+        Arrays.sort(edges);
+
+        // rows by their top, the lowest first
+        final float[] tops = new float[rows.size()];
+        Integer[] byTop = new Integer[rows.size()];
+        for (int i = 0; i < tops.length; i++) {
+            float top = java.lang.Float.MAX_VALUE;
+            for (Cell cell: rows.get(i)) {
+                top = Math.min(top, (float) cell.getY());
+            }
+            tops[i] = top;
+            byTop[i] = i;
+        }
+        Arrays.sort(byTop, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer arg0, Integer arg1) {
+                return java.lang.Float.compare(tops[arg1], tops[arg0]);
+            }
+        });
+
+        // rows by the bottom of their first cell, where the cells that count begin, the lowest first
+        final float[] bottoms = new float[rows.size()];
+        Integer[] byBottom = new Integer[rows.size()];
+        for (int i = 0; i < bottoms.length; i++) {
+            bottoms[i] = rows.get(i).get(0).getBottom();
+            byBottom[i] = i;
+        }
+        Arrays.sort(byBottom, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer arg0, Integer arg1) {
+                return java.lang.Float.compare(bottoms[arg1], bottoms[arg0]);
+            }
+        });
+
+        int[] tree = new int[edges.length + 1];
+        int[] rv = new int[rows.size()];
+        int added = 0;
+        for (Integer i: byBottom) {
+            while (added < byTop.length && tops[byTop[added]] >= bottoms[i]) {
+                // the t-th cell of a row, by right edge, makes t cells end at or before that edge
+                List<Cell> row = rows.get(byTop[added++]);
+                float[] rights = new float[row.size()];
+                for (int j = 0; j < rights.length; j++) {
+                    rights[j] = right(row.get(j));
+                }
+                Arrays.sort(rights);
+                for (int j = 0; j < rights.length; j++) {
+                    for (int k = lastIndexAtMost(edges, rights[j]) + 1; k < tree.length; k += k & -k) {
+                        tree[k] = Math.max(tree[k], j + 1);
+                    }
+                }
+            }
+
+            Cell first = rows.get(i).get(0);
+            float maxX = (float) ((double) left + (first.getLeft() - left));
+            int count = 0;
+            for (int k = lastIndexAtMost(edges, maxX) + 1; k > 0; k -= k & -k) {
+                count = Math.max(count, tree[k]);
+            }
+            rv[i] = count;
+        }
+        return rv;
+    }
+
+    private static float right(Cell cell) {
+        return (float) (cell.getX() + cell.getWidth());
+    }
+
+    // index of the last of sorted that's <= value, -1 if none
+    private static int lastIndexAtMost(float[] sorted, float value) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
             }
-            this.add(cell, i, startColumn++);
-            while (rowCells.hasNext()) {
-                this.add(rowCells.next(), i, startColumn++);
+            else {
+                high = mid;
             }
         }
+        return low - 1;
     }
     
     private static List<List<Cell>> rowsOfCells(List<Cell> cells) {
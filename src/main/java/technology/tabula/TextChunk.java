@@ -59,10 +59,15 @@ public class TextChunk extends RectangularTextContainer<TextElement> implements
         }
 
         StringBuilder sb = new StringBuilder();
+        this.appendText(sb);
+        return sb.toString();
+    }
+
+    @Override
+    public void appendText(StringBuilder sb) {
         for (TextElement te: this.textElements) {
             sb.append(te.getText());
         }
-        return sb.toString();
     }
     
     @Override
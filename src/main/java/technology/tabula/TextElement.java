@@ -1,6 +1,9 @@
 package technology.tabula;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.pdfbox.pdmodel.font.PDFont;
@@ -118,8 +121,11 @@ public class TextElement extends Rectangle implements HasText {
             return textChunks;
         }
         
-        textChunks.add(new TextChunk(textElements.remove(0)));
+        // don't modify textElements, it's often the text of a Page
+        Iterator<TextElement> iterator = textElements.iterator();
+        textChunks.add(new TextChunk(iterator.next()));
         TextChunk firstTC = textChunks.get(0); 
+        VerticalRulings rulings = new VerticalRulings(verticalRulings);
         
         float previousAveCharWidth = (float) firstTC.getWidth();
         float endOfLastTextX = (float) firstTC.getRight();
@@ -133,7 +139,8 @@ public class TextElement extends Rectangle implements HasText {
         TextChunk currentChunk;
         boolean sameLine, acrossVerticalRuling;
         
-        for (TextElement chr : textElements) {
+        while (iterator.hasNext()) {
+            TextElement chr = iterator.next();
             currentChunk = textChunks.get(textChunks.size() - 1);
             prevChar = currentChunk.textElements.get(currentChunk.textElements.size() - 1);
             
@@ -154,16 +161,7 @@ public class TextElement extends Rectangle implements HasText {
             }
 
             // is there any vertical ruling that goes across chr and prevChar?
-            acrossVerticalRuling = false;
-            for (Ruling r: verticalRulings) {
-                if (    
-                        (verticallyOverlapsRuling(prevChar, r) && verticallyOverlapsRuling(chr, r)) &&
-                        (prevChar.x < r.getPosition() && chr.x > r.getPosition()) || (prevChar.x > r.getPosition() && chr.x < r.getPosition())
-                    ) {
-                    acrossVerticalRuling = true;
-                    break;
-                }
-            } 
+            acrossVerticalRuling = rulings.across(prevChar, chr);
             
             // Estimate the expected width of the space based on the
             // space character with some margin.
@@ -290,6 +288,88 @@ public class TextElement extends Rectangle implements HasText {
         return textChunks;
     }
     
+    /**
+     * Vertical rulings sorted by position, to find the ones between two
+     * characters with a binary search instead of looking at all of them
+     */
+    private static final class VerticalRulings {
+        private final List<Ruling> rulings;
+        private final float[] positions;
+        private final Ruling[] sorted;
+        // getPosition() isn't defined for oblique rulings, check them one by one
+        private final boolean hasOblique;
+
+        VerticalRulings(List<Ruling> rulings) {
+            this.rulings = rulings;
+            boolean hasOblique = false;
+            List<Ruling> sorted = new ArrayList<Ruling>(rulings.size());
+            for (Ruling r: rulings) {
+                if (r.oblique()) {
+                    hasOblique = true;
+                }
+                else if (!java.lang.Float.isNaN(r.getPosition())) {
+                    sorted.add(r);
+                }
+            }
+            this.hasOblique = hasOblique;
+            Collections.sort(sorted, new Comparator<Ruling>() {
+                @Override
+                public int compare(Ruling r1, Ruling r2) {
+                    return java.lang.Float.compare(r1.getPosition(), r2.getPosition());
+                }
+            });
+            this.sorted = sorted.toArray(new Ruling[sorted.size()]);
+            this.positions = new float[this.sorted.length];
+            for (int i = 0; i < this.sorted.length; i++) {
+                this.positions[i] = this.sorted[i].getPosition();
+            }
+        }
+
+        /**
+         * Is there a ruling between prevChar and chr? Going right, the ruling must
+         * also overlap both vertically
+         */
+        boolean across(TextElement prevChar, TextElement chr) {
+            if (this.hasOblique) {
+                for (Ruling r: this.rulings) {
+                    if (
+                            (verticallyOverlapsRuling(prevChar, r) && verticallyOverlapsRuling(chr, r)) &&
+                            (prevChar.x < r.getPosition() && chr.x > r.getPosition()) || (prevChar.x > r.getPosition() && chr.x < r.getPosition())
+                        ) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            if (prevChar.x < chr.x) {
+                for (int i = this.firstAfter(prevChar.x); i < this.positions.length && this.positions[i] < chr.x; i++) {
+                    if (verticallyOverlapsRuling(prevChar, this.sorted[i]) && verticallyOverlapsRuling(chr, this.sorted[i])) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            int i = this.firstAfter(chr.x);
+            return i < this.positions.length && this.positions[i] < prevChar.x;
+        }
+
+        // index of the first position greater than x
+        private int firstAfter(float x) {
+            int low = 0, high = this.positions.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (this.positions[mid] > x) {
+                    high = mid;
+                }
+                else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+    }
+
     private static boolean verticallyOverlapsRuling(TextElement te, Ruling r) {
         // Utils.overlap(prevChar.getTop(), prevChar.getHeight(), r.getY1(), r.getY2() - r.getY1())
         return Math.max(0, Math.min(te.getBottom(), r.getY2()) - Math.max(te.getTop(), r.getY1())) > 0;
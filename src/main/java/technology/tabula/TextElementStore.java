@@ -0,0 +1,330 @@
+package technology.tabula;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+/**
+ * List of TextElements kept as columns of primitives (one array per
+ * coordinate, font ids into a table of fonts, and a pool of chars for the
+ * text) instead of one object per glyph.
+ *
+ * get creates a new TextElement on every call, so elements should be compared
+ * with equals, not ==. Changes to a TextElement aren't written back, use set.
+ *
+ * snapshot makes a copy that shares the arrays until either list is modified.
+ */
+public class TextElementStore extends AbstractList<TextElement> implements RandomAccess {
+
+    private int size = 0;
+    private float[] x, y, width, height, fontSize, widthOfSpace, dir;
+    private int[] fontIds;
+    // text of element i is chars[textStart[i]] to chars[textStart[i + 1]]
+    private int[] textStart;
+    private char[] chars;
+
+    private List<PDFont> fonts = new ArrayList<PDFont>();
+    private Map<PDFont, Integer> fontIdsByFont = new IdentityHashMap<PDFont, Integer>();
+    // arrays are shared with a snapshot, copy them before writing
+    private boolean shared = false;
+
+    public TextElementStore() {
+        this(16);
+    }
+
+    public TextElementStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.width = new float[capacity];
+        this.height = new float[capacity];
+        this.fontSize = new float[capacity];
+        this.widthOfSpace = new float[capacity];
+        this.dir = new float[capacity];
+        this.fontIds = new int[capacity];
+        this.textStart = new int[capacity + 1];
+        this.chars = new char[capacity];
+    }
+
+    private TextElementStore(TextElementStore other, int size) {
+        this.size = size;
+        this.x = other.x;
+        this.y = other.y;
+        this.width = other.width;
+        this.height = other.height;
+        this.fontSize = other.fontSize;
+        this.widthOfSpace = other.widthOfSpace;
+        this.dir = other.dir;
+        this.fontIds = other.fontIds;
+        this.textStart = other.textStart;
+        this.chars = other.chars;
+        this.fonts = new ArrayList<PDFont>(other.fonts);
+        this.fontIdsByFont = new IdentityHashMap<PDFont, Integer>(other.fontIdsByFont);
+        this.shared = true;
+    }
+
+    public TextElementStore(List<TextElement> textElements) {
+        this(textElements.size());
+        for (TextElement te: textElements) {
+            this.add(te);
+        }
+    }
+
+    /**
+     * Appends an element, with the same arguments as the TextElement constructor
+     */
+    public void add(float y, float x, float width, float height, PDFont font, float fontSize, String text,
+            float widthOfSpace, float dir) {
+        this.unshare();
+        this.ensureCapacity(this.size + 1);
+        int i = this.size;
+        this.y[i] = y;
+        this.x[i] = x;
+        this.width[i] = width;
+        this.height[i] = height;
+        this.fontIds[i] = this.fontId(font);
+        this.fontSize[i] = fontSize;
+        this.widthOfSpace[i] = widthOfSpace;
+        this.dir[i] = dir;
+
+        int start = this.textStart[i];
+        if (start + text.length() > this.chars.length) {
+            this.chars = Arrays.copyOf(this.chars, Math.max(this.chars.length * 2, start + text.length()));
+        }
+        text.getChars(0, text.length(), this.chars, start);
+        this.textStart[i + 1] = start + text.length();
+        this.size++;
+        this.modCount++;
+    }
+
+    @Override
+    public boolean add(TextElement te) {
+        this.add(te.y, te.x, te.width, te.height, te.getFont(), te.getFontSize(), te.getText(),
+                te.getWidthOfSpace(), te.getDirection());
+        return true;
+    }
+
+    @Override
+    public TextElement get(int i) {
+        this.checkIndex(i);
+        return new TextElement(this.y[i], this.x[i], this.width[i], this.height[i], this.fonts.get(this.fontIds[i]),
+                this.fontSize[i], this.getText(i), this.widthOfSpace[i], this.dir[i]);
+    }
+
+    @Override
+    public TextElement set(int i, TextElement te) {
+        TextElement rv = this.get(i);
+        this.unshare();
+        String text = te.getText();
+        this.replaceText(i, text);
+        this.y[i] = te.y;
+        this.x[i] = te.x;
+        this.width[i] = te.width;
+        this.height[i] = te.height;
+        this.fontIds[i] = this.fontId(te.getFont());
+        this.fontSize[i] = te.getFontSize();
+        this.widthOfSpace[i] = te.getWidthOfSpace();
+        this.dir[i] = te.getDirection();
+        return rv;
+    }
+
+    @Override
+    public TextElement remove(int i) {
+        TextElement rv = this.get(i);
+        this.unshare();
+        this.replaceText(i, "");
+        int moved = this.size - i - 1;
+        for (float[] column: new float[][] { this.x, this.y, this.width, this.height, this.fontSize, this.widthOfSpace, this.dir }) {
+            System.arraycopy(column, i + 1, column, i, moved);
+        }
+        System.arraycopy(this.fontIds, i + 1, this.fontIds, i, moved);
+        System.arraycopy(this.textStart, i + 1, this.textStart, i, moved + 1);
+        this.size--;
+        this.modCount++;
+        return rv;
+    }
+
+    @Override
+    public void clear() {
+        this.unshare();
+        this.size = 0;
+        this.textStart[0] = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    public float getX(int i) {
+        this.checkIndex(i);
+        return this.x[i];
+    }
+
+    public float getY(int i) {
+        this.checkIndex(i);
+        return this.y[i];
+    }
+
+    public float getWidth(int i) {
+        this.checkIndex(i);
+        return this.width[i];
+    }
+
+    public float getHeight(int i) {
+        this.checkIndex(i);
+        return this.height[i];
+    }
+
+    public String getText(int i) {
+        this.checkIndex(i);
+        return new String(this.chars, this.textStart[i], this.textStart[i + 1] - this.textStart[i]);
+    }
+
+    /**
+     * Sorts the elements in the order of Utils.sort, without creating TextElements
+     *
+     * @return the former position of each element
+     */
+    public int[] sort() {
+        final Rectangle a = new Rectangle(), b = new Rectangle();
+        List<Integer> order = new ArrayList<Integer>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            order.add(i);
+        }
+        // Rectangle.compareTo only needs the geometry: elements with the same bounds compare as 0
+        // whether they are equal or not
+        Utils.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i, Integer j) {
+                a.setRect(x[i], y[i], width[i], height[i]);
+                b.setRect(x[j], y[j], width[j], height[j]);
+                return a.compareTo(b);
+            }
+        });
+
+        int[] rv = new int[this.size];
+        for (int i = 0; i < this.size; i++) {
+            rv[i] = order.get(i);
+        }
+        this.permute(rv);
+        return rv;
+    }
+
+    private void permute(int[] order) {
+        this.unshare();
+        int n = this.size;
+        for (float[] column: new float[][] { this.x, this.y, this.width, this.height, this.fontSize, this.widthOfSpace, this.dir }) {
+            float[] copy = Arrays.copyOf(column, n);
+            for (int i = 0; i < n; i++) {
+                column[i] = copy[order[i]];
+            }
+        }
+        int[] ids = Arrays.copyOf(this.fontIds, n);
+        for (int i = 0; i < n; i++) {
+            this.fontIds[i] = ids[order[i]];
+        }
+        char[] oldChars = Arrays.copyOf(this.chars, this.textStart[n]);
+        int[] oldStart = Arrays.copyOf(this.textStart, n + 1);
+        int pos = 0;
+        for (int i = 0; i < n; i++) {
+            int length = oldStart[order[i] + 1] - oldStart[order[i]];
+            System.arraycopy(oldChars, oldStart[order[i]], this.chars, pos, length);
+            this.textStart[i] = pos;
+            pos += length;
+        }
+        this.textStart[n] = pos;
+        this.modCount++;
+    }
+
+    /**
+     * A copy of this list. Both share their arrays until one of them is modified.
+     */
+    public TextElementStore snapshot() {
+        TextElementStore rv = new TextElementStore(this, this.size);
+        this.shared = true;
+        return rv;
+    }
+
+    /**
+     * Fonts of the elements, by font id
+     */
+    List<PDFont> getFonts() {
+        return Collections.unmodifiableList(this.fonts);
+    }
+
+    private int fontId(PDFont font) {
+        Integer id = this.fontIdsByFont.get(font);
+        if (id == null) {
+            id = this.fonts.size();
+            this.fonts.add(font);
+            this.fontIdsByFont.put(font, id);
+        }
+        return id;
+    }
+
+    private void replaceText(int i, String text) {
+        int start = this.textStart[i], end = this.textStart[i + 1];
+        int delta = text.length() - (end - start);
+        if (delta != 0) {
+            int used = this.textStart[this.size];
+            if (used + delta > this.chars.length) {
+                this.chars = Arrays.copyOf(this.chars, Math.max(this.chars.length * 2, used + delta));
+            }
+            System.arraycopy(this.chars, end, this.chars, end + delta, used - end);
+            for (int j = i + 1; j <= this.size; j++) {
+                this.textStart[j] += delta;
+            }
+        }
+        text.getChars(0, text.length(), this.chars, start);
+    }
+
+    private void unshare() {
+        if (!this.shared) {
+            return;
+        }
+        this.x = this.x.clone();
+        this.y = this.y.clone();
+        this.width = this.width.clone();
+        this.height = this.height.clone();
+        this.fontSize = this.fontSize.clone();
+        this.widthOfSpace = this.widthOfSpace.clone();
+        this.dir = this.dir.clone();
+        this.fontIds = this.fontIds.clone();
+        this.textStart = this.textStart.clone();
+        this.chars = this.chars.clone();
+        this.shared = false;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.x.length) {
+            return;
+        }
+        capacity = Math.max(capacity, this.x.length * 2);
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.width = Arrays.copyOf(this.width, capacity);
+        this.height = Arrays.copyOf(this.height, capacity);
+        this.fontSize = Arrays.copyOf(this.fontSize, capacity);
+        this.widthOfSpace = Arrays.copyOf(this.widthOfSpace, capacity);
+        this.dir = Arrays.copyOf(this.dir, capacity);
+        this.fontIds = Arrays.copyOf(this.fontIds, capacity);
+        this.textStart = Arrays.copyOf(this.textStart, capacity + 1);
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + this.size);
+        }
+    }
+
+}
@@ -33,7 +33,64 @@ public class Utils {
         return (Math.abs(f1 - f2) < EPSILON);
     }
     
+    private static final int MAX_FAST_DECIMAL_PLACES = 10;
+    private static final double[] POW10 = new double[MAX_FAST_DECIMAL_PLACES + 1];
+    private static final float[] POW10F = new float[MAX_FAST_DECIMAL_PLACES + 1];
+    private static final long[] POW5 = new long[MAX_FAST_DECIMAL_PLACES + 1];
+    static {
+        POW10[0] = 1; POW10F[0] = 1; POW5[0] = 1;
+        for (int i = 1; i <= MAX_FAST_DECIMAL_PLACES; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+            POW10F[i] = POW10F[i - 1] * 10;
+            POW5[i] = POW5[i - 1] * 5;
+        }
+    }
+
+    /**
+     * Rounds d to decimalPlace decimals (HALF_UP, applied to the decimal
+     * representation of d given by Double.toString) and returns it as a float.
+     *
+     * Most values are rounded with plain arithmetic; values that fall too close
+     * to a rounding tie to decide that way go through BigDecimal.
+     */
     public static float round(double d, int decimalPlace) {
+        if (decimalPlace < 0 || decimalPlace > MAX_FAST_DECIMAL_PLACES) {
+            return roundBigDecimal(d, decimalPlace);
+        }
+
+        double abs = Math.abs(d);
+        double scaled = abs * POW10[decimalPlace];
+        if (!(scaled < 16777216)) { // also catches NaN and infinities
+            return roundBigDecimal(d, decimalPlace);
+        }
+
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        long n;
+        // the error of scaled, from d and from the product, is within 2 ulps of it
+        if (Math.abs(fraction - 0.5) > 4 * Math.ulp(scaled)) {
+            n = (long) floor + (fraction > 0.5 ? 1 : 0);
+        }
+        else {
+            // d is an exact tie only if it's exactly (floor + 0.5) / 10^decimalPlace
+            long twice = 2 * (long) floor + 1;
+            if (twice % POW5[decimalPlace] != 0
+                    || (double) (twice / POW5[decimalPlace]) / (2L << decimalPlace) != abs) {
+                return roundBigDecimal(d, decimalPlace);
+            }
+            n = (long) floor + 1;
+        }
+
+        if (n == 0) {
+            return 0f;
+        }
+        if (n >= 16777216) {
+            return roundBigDecimal(d, decimalPlace);
+        }
+        return (d < 0 ? -n : n) / POW10F[decimalPlace];
+    }
+
+    static float roundBigDecimal(double d, int decimalPlace) {
         BigDecimal bd = new BigDecimal(Double.toString(d));
         bd = bd.setScale(decimalPlace, BigDecimal.ROUND_HALF_UP);
         return bd.floatValue();
@@ -126,6 +183,18 @@ public class Utils {
             Collections.sort(list);
         }
     }
+
+    /**
+     * Same as sort(list), with an explicit comparator
+     */
+    public static <T> void sort(List<T> list, Comparator<T> comparator) {
+        if (useQuickSort) {
+            QuickSort.sort(list, comparator);
+        }
+        else {
+            Collections.sort(list, comparator);
+        }
+    }
     
     private static boolean useCustomQuickSort() {
         // taken from PDFBOX:
@@ -1,22 +1,30 @@
 package technology.tabula.detectors;
 
-import org.apache.pdfbox.pdfparser.PDFStreamParser;
-import org.apache.pdfbox.pdfwriter.ContentStreamWriter;
-import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdfviewer.PageDrawer;
 import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.common.PDStream;
-import org.apache.pdfbox.util.PDFOperator;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.util.TextPosition;
 import technology.tabula.*;
 import technology.tabula.Rectangle;
 import technology.tabula.extractors.SpreadsheetExtractionAlgorithm;
 
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
 import java.awt.image.Raster;
+import java.awt.image.SampleModel;
 import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Created by matt on 2015-12-17.
@@ -27,6 +35,9 @@ import java.util.List;
  */
 public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
 
+    public static final int DEFAULT_DPI = 144;
+
+    // the pixel distances below are for images rendered at DEFAULT_DPI
     private static final int GRAYSCALE_INTENSITY_THRESHOLD = 25;
     private static final int HORIZONTAL_EDGE_WIDTH_MINIMUM = 50;
     private static final int VERTICAL_EDGE_HEIGHT_MINIMUM = 10;
@@ -37,6 +48,10 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
     private static final int REQUIRED_CELLS_FOR_TABLE = 4;
     private static final float IDENTICAL_TABLE_OVERLAP_RATIO = 0.9f;
 
+    private final int dpi;
+    private final ExecutorService executor;
+    private final int parallelism;
+
     /**
      * Helper class that encapsulates a text edge
      */
@@ -80,6 +95,30 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
         }
     }
 
+    public NurminenDetectionAlgorithm() {
+        this(null);
+    }
+
+    /**
+     * @param executor used to scan the rendered page for edges in parallel bands
+     */
+    public NurminenDetectionAlgorithm(ExecutorService executor) {
+        this(DEFAULT_DPI, executor);
+    }
+
+    /**
+     * @param dpi resolution the page is rendered at to look for edges
+     * @param executor used to scan the rendered page for edges in parallel bands
+     */
+    public NurminenDetectionAlgorithm(int dpi, ExecutorService executor) {
+        if (dpi < 1) {
+            throw new IllegalArgumentException("dpi must be greater than 0");
+        }
+        this.dpi = dpi;
+        this.executor = executor;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
     @Override
     public List<Rectangle> detect(Page page) {
 
@@ -87,26 +126,26 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
         // we get these from an image of the PDF and not the PDF itself because sometimes there are invisible PDF
         // instructions that are interpreted incorrectly as visible elements - we really want to capture what a
         // person sees when they look at the PDF
-        BufferedImage image;
-        PDPage pdfPage = page.getPDPage();
-        try {
-            image = pdfPage.convertToImage(BufferedImage.TYPE_BYTE_GRAY, 144);
-        } catch (IOException e) {
-            return new ArrayList<Rectangle>();
+        List<Ruling> horizontalRulings, verticalRulings;
+        if (page.getPDPage() == null) {
+            // nothing to render (e.g. a page read by PageSerializer), fall back to its ruling lines
+            horizontalRulings = this.toImageSpace(page.getHorizontalRulings());
+            verticalRulings = this.toImageSpace(page.getVerticalRulings());
         }
+        else {
+            BufferedImage[] images;
+            try {
+                images = this.renderPage(page.getPDPage());
+            } catch (Exception e) {
+                return new ArrayList<Rectangle>();
+            }
 
-        List<Ruling> horizontalRulings = this.getHorizontalRulings(image);
+            horizontalRulings = this.getHorizontalRulings(images[0]);
 
-        // now check the page for vertical lines, but remove the text first to make things less confusing
-        try {
-            this.removeText(pdfPage);
-            image = pdfPage.convertToImage(BufferedImage.TYPE_BYTE_GRAY, 144);
-        } catch (Exception e) {
-            return new ArrayList<Rectangle>();
+            // now check the page for vertical lines, on the image without text to make things less confusing
+            verticalRulings = this.getVerticalRulings(images[1]);
         }
 
-        List<Ruling> verticalRulings = this.getVerticalRulings(image);
-
         List<Ruling> allEdges = new ArrayList<Ruling>(horizontalRulings);
         allEdges.addAll(verticalRulings);
 
@@ -115,7 +154,8 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
         // if we found some edges, try to find some tables based on them
         if (allEdges.size() > 0) {
             // now we need to snap edge endpoints to a grid
-            Utils.snapPoints(allEdges, POINT_SNAP_DISTANCE_THRESHOLD, POINT_SNAP_DISTANCE_THRESHOLD);
+            float snapDistance = POINT_SNAP_DISTANCE_THRESHOLD * this.dpi / DEFAULT_DPI;
+            Utils.snapPoints(allEdges, snapDistance, snapDistance);
 
             // normalize the rulings to make sure snapping didn't create any wacky non-horizontal/vertical rulings
             for (List<Ruling> rulings : Arrays.asList(horizontalRulings, verticalRulings)) {
@@ -132,8 +172,8 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
             // merge the edge lines into rulings - this makes finding edges between crossing points in the next step easier
             // we use a larger pixel expansion than the normal spreadsheet extraction method to cover gaps in the
             // edge detection/pixel snapping steps
-            horizontalRulings = Ruling.collapseOrientedRulings(horizontalRulings, 5);
-            verticalRulings = Ruling.collapseOrientedRulings(verticalRulings, 5);
+            horizontalRulings = Ruling.collapseOrientedRulings(horizontalRulings, this.pixels(5));
+            verticalRulings = Ruling.collapseOrientedRulings(verticalRulings, this.pixels(5));
 
             // use the rulings and points to find cells
             List<? extends Rectangle> cells = SpreadsheetExtractionAlgorithm.findCells(horizontalRulings, verticalRulings);
@@ -157,21 +197,22 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
             }
         }
 
-        // the tabula Page coordinate space is half the size of the PDFBox image coordinate space
-        // so halve the table area size before proceeding and add a bit of padding to make sure we capture everything
+        // the tabula Page coordinate space is 72 dpi, so scale the table areas down to it (halve them, at
+        // the default 144 dpi) before proceeding and add a bit of padding to make sure we capture everything
+        float scale = this.dpi / 72f;
         for (Rectangle area : tableAreas) {
-            area.x = (float)Math.floor(area.x/2) - TABLE_PADDING_AMOUNT;
-            area.y = (float)Math.floor(area.y/2) - TABLE_PADDING_AMOUNT;
-            area.width = (float)Math.ceil(area.width/2) + TABLE_PADDING_AMOUNT;
-            area.height = (float)Math.ceil(area.height/2) + TABLE_PADDING_AMOUNT;
+            area.x = (float)Math.floor(area.x/scale) - TABLE_PADDING_AMOUNT;
+            area.y = (float)Math.floor(area.y/scale) - TABLE_PADDING_AMOUNT;
+            area.width = (float)Math.ceil(area.width/scale) + TABLE_PADDING_AMOUNT;
+            area.height = (float)Math.ceil(area.height/scale) + TABLE_PADDING_AMOUNT;
         }
 
-        // we're going to want halved horizontal lines later too
+        // we're going to want scaled horizontal lines later too
         for (Line2D.Float ruling : horizontalRulings) {
-            ruling.x1 = ruling.x1/2;
-            ruling.y1 = ruling.y1/2;
-            ruling.x2 = ruling.x2/2;
-            ruling.y2 = ruling.y2/2;
+            ruling.x1 = ruling.x1/scale;
+            ruling.y1 = ruling.y1/scale;
+            ruling.x2 = ruling.x2/scale;
+            ruling.y2 = ruling.y2/scale;
         }
 
         // now look at text rows to help us find more tables and flesh out existing ones
@@ -636,7 +677,7 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
 
                     for (int i=0; i<candidateCorners.length; i++) {
                         for (int j=0; j<groupCellCorners.length; j++) {
-                            if (candidateCorners[i].distance(groupCellCorners[j]) < CELL_CORNER_DISTANCE_MAXIMUM) {
+                            if (candidateCorners[i].distance(groupCellCorners[j]) < this.pixels(CELL_CORNER_DISTANCE_MAXIMUM)) {
                                 cellGroup.add(cell);
                                 addedToGroup = true;
                                 break cellCheck;
@@ -679,49 +720,79 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
         return tableAreas;
     }
 
+    /**
+     * Copies of rulings, scaled from page coordinates to those of an image rendered at this.dpi
+     */
+    private List<Ruling> toImageSpace(List<Ruling> rulings) {
+        float scale = this.dpi / 72f;
+        List<Ruling> rv = new ArrayList<Ruling>(rulings.size());
+        for (Ruling r : rulings) {
+            rv.add(new Ruling(new Point2D.Float(r.x1 * scale, r.y1 * scale), new Point2D.Float(r.x2 * scale, r.y2 * scale)));
+        }
+        return rv;
+    }
+
     private List<Ruling> getHorizontalRulings(BufferedImage image) {
 
         // get all horizontal edges, which we'll define as a change in grayscale colour
         // along a straight line of a certain length
-        ArrayList<Ruling> horizontalRulings = new ArrayList<Ruling>();
+        final GrayscaleImage gray = new GrayscaleImage(image);
+        final int minimumWidth = this.pixels(HORIZONTAL_EDGE_WIDTH_MINIMUM);
+
+        // edges only depend on the row they're in and the row above it, so the
+        // image is scanned in bands of rows
+        List<Ruling> horizontalRulings = this.scanInBands(gray.height, new BandScanner() {
+            @Override
+            public List<Ruling> scan(int from, int to) {
+                return getHorizontalRulings(gray, from, to, minimumWidth);
+            }
+        });
+
+        // keep the order of a column by column scan
+        Collections.sort(horizontalRulings, new Comparator<Ruling>() {
+            @Override
+            public int compare(Ruling o1, Ruling o2) {
+                int rv = java.lang.Float.compare(o1.x1, o2.x1);
+                return rv != 0 ? rv : java.lang.Float.compare(o1.y1, o2.y1);
+            }
+        });
+
+        return horizontalRulings;
+    }
 
-        Raster r = image.getRaster();
-        int width = r.getWidth();
-        int height = r.getHeight();
+    private static List<Ruling> getHorizontalRulings(GrayscaleImage image, int fromY, int toY, int minimumWidth) {
+        ArrayList<Ruling> horizontalRulings = new ArrayList<Ruling>();
+        byte[] pixels = image.pixels;
+        int width = image.width;
 
-        for (int x=0; x<width; x++) {
+        for (int y=Math.max(fromY, 1); y<Math.min(toY, image.height-1); y++) {
 
-            int[] lastPixel = r.getPixel(x, 0, (int[])null);
+            int row = y * width;
+            int aboveRow = row - width;
+            // edges found in this row cover every pixel up to here
+            int checkedUntil = -1;
 
-            for (int y=1; y<height-1; y++) {
+            for (int x=0; x<width; x++) {
 
-                int[] currPixel = r.getPixel(x, y, (int[])null);
+                int currPixel = pixels[row + x] & 0xff;
+                int lastPixel = pixels[aboveRow + x] & 0xff;
 
-                int diff = Math.abs(currPixel[0] - lastPixel[0]);
+                int diff = Math.abs(currPixel - lastPixel);
                 if (diff > GRAYSCALE_INTENSITY_THRESHOLD) {
                     // we hit what could be a line
                     // don't bother scanning it if we've hit a pixel in the line before
-                    boolean alreadyChecked = false;
-                    for (Line2D.Float line : horizontalRulings) {
-                        if (y == line.getY1() && x >= line.getX1() && x <= line.getX2()) {
-                            alreadyChecked = true;
-                            break;
-                        }
-                    }
-
-                    if (alreadyChecked) {
-                        lastPixel = currPixel;
+                    if (x <= checkedUntil) {
                         continue;
                     }
 
                     int lineX = x + 1;
 
                     while (lineX < width) {
-                        int[] linePixel = r.getPixel(lineX, y, (int[]) null);
-                        int[] abovePixel = r.getPixel(lineX, y - 1, (int[]) null);
+                        int linePixel = pixels[row + lineX] & 0xff;
+                        int abovePixel = pixels[aboveRow + lineX] & 0xff;
 
-                        if (Math.abs(linePixel[0] - abovePixel[0]) <= GRAYSCALE_INTENSITY_THRESHOLD
-                                || Math.abs(currPixel[0] - linePixel[0]) > GRAYSCALE_INTENSITY_THRESHOLD) {
+                        if (Math.abs(linePixel - abovePixel) <= GRAYSCALE_INTENSITY_THRESHOLD
+                                || Math.abs(currPixel - linePixel) > GRAYSCALE_INTENSITY_THRESHOLD) {
                             break;
                         }
 
@@ -730,12 +801,11 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
 
                     int endX = lineX - 1;
                     int lineWidth = endX - x;
-                    if (lineWidth > HORIZONTAL_EDGE_WIDTH_MINIMUM) {
+                    if (lineWidth > minimumWidth) {
                         horizontalRulings.add(new Ruling(new Point2D.Float(x, y), new Point2D.Float(endX, y)));
+                        checkedUntil = endX;
                     }
                 }
-
-                lastPixel = currPixel;
             }
         }
 
@@ -746,45 +816,67 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
 
         // get all vertical edges, which we'll define as a change in grayscale colour
         // along a straight line of a certain length
+        final GrayscaleImage gray = new GrayscaleImage(image);
+        final int minimumHeight = this.pixels(VERTICAL_EDGE_HEIGHT_MINIMUM);
+
+        // edges only depend on the column they're in and the column to the left
+        // of it, so the image is scanned in bands of columns
+        List<Ruling> verticalRulings = this.scanInBands(gray.width, new BandScanner() {
+            @Override
+            public List<Ruling> scan(int from, int to) {
+                return getVerticalRulings(gray, from, to, minimumHeight);
+            }
+        });
+
+        // keep the order of a row by row scan
+        Collections.sort(verticalRulings, new Comparator<Ruling>() {
+            @Override
+            public int compare(Ruling o1, Ruling o2) {
+                int rv = java.lang.Float.compare(o1.y1, o2.y1);
+                return rv != 0 ? rv : java.lang.Float.compare(o1.x1, o2.x1);
+            }
+        });
+
+        return verticalRulings;
+    }
+
+    private static List<Ruling> getVerticalRulings(GrayscaleImage image, int fromX, int toX, int minimumHeight) {
         ArrayList<Ruling> verticalRulings = new ArrayList<Ruling>();
+        byte[] pixels = image.pixels;
+        int width = image.width;
+        int height = image.height;
+        fromX = Math.max(fromX, 1);
+        toX = Math.min(toX, width-1);
 
-        Raster r = image.getRaster();
-        int width = r.getWidth();
-        int height = r.getHeight();
+        // for every column, edges found in it cover every pixel up to this row
+        int[] checkedUntil = new int[Math.max(toX - fromX, 0)];
+        Arrays.fill(checkedUntil, -1);
 
         for (int y=0; y<height; y++) {
 
-            int[] lastPixel = r.getPixel(0, y, (int[])null);
+            int row = y * width;
 
-            for (int x=1; x<width-1; x++) {
+            for (int x=fromX; x<toX; x++) {
 
-                int[] currPixel = r.getPixel(x, y, (int[])null);
+                int currPixel = pixels[row + x] & 0xff;
+                int lastPixel = pixels[row + x - 1] & 0xff;
 
-                int diff = Math.abs(currPixel[0] - lastPixel[0]);
+                int diff = Math.abs(currPixel - lastPixel);
                 if (diff > GRAYSCALE_INTENSITY_THRESHOLD) {
                     // we hit what could be a line
                     // don't bother scanning it if we've hit a pixel in the line before
-                    boolean alreadyChecked = false;
-                    for (Line2D.Float line : verticalRulings) {
-                        if (x == line.getX1() && y >= line.getY1() && y <= line.getY2()) {
-                            alreadyChecked = true;
-                            break;
-                        }
-                    }
-
-                    if (alreadyChecked) {
-                        lastPixel = currPixel;
+                    if (y <= checkedUntil[x - fromX]) {
                         continue;
                     }
 
                     int lineY = y + 1;
 
                     while (lineY < height) {
-                        int[] linePixel = r.getPixel(x, lineY, (int[]) null);
-                        int[] leftPixel = r.getPixel(x - 1, lineY, (int[]) null);
+                        int linePixel = pixels[lineY * width + x] & 0xff;
+                        int leftPixel = pixels[lineY * width + x - 1] & 0xff;
 
-                        if (Math.abs(linePixel[0] - leftPixel[0]) <= GRAYSCALE_INTENSITY_THRESHOLD
-                                || Math.abs(currPixel[0] - linePixel[0]) > GRAYSCALE_INTENSITY_THRESHOLD) {
+                        if (Math.abs(linePixel - leftPixel) <= GRAYSCALE_INTENSITY_THRESHOLD
+                                || Math.abs(currPixel - linePixel) > GRAYSCALE_INTENSITY_THRESHOLD) {
                             break;
                         }
 
@@ -793,49 +885,174 @@ public class NurminenDetectionAlgorithm implements DetectionAlgorithm {
 
                     int endY = lineY - 1;
                     int lineLength = endY - y;
-                    if (lineLength > VERTICAL_EDGE_HEIGHT_MINIMUM) {
+                    if (lineLength > minimumHeight) {
                         verticalRulings.add(new Ruling(new Point2D.Float(x, y), new Point2D.Float(x, endY)));
+                        checkedUntil[x - fromX] = endY;
                     }
                 }
-
-                lastPixel = currPixel;
             }
         }
 
         return verticalRulings;
     }
 
-    // taken from http://www.docjar.com/html/api/org/apache/pdfbox/examples/util/RemoveAllText.java.html
-    private void removeText(PDPage page) throws IOException {
-        PDFStreamParser parser = new PDFStreamParser(page.getContents());
-        parser.parse();
-
-        List tokens = parser.getTokens();
-        List newTokens = new ArrayList();
-
-        for (int i=0; i<tokens.size(); i++) {
-            Object token = tokens.get(i);
-            if (token instanceof PDFOperator) {
-                PDFOperator op = (PDFOperator)token;
-                if (op.getOperation().equals("TJ") || op.getOperation().equals("Tj")) {
-                    newTokens.remove(newTokens.size() - 1);
-                    continue;
+    private interface BandScanner {
+        List<Ruling> scan(int from, int to);
+    }
+
+    /**
+     * Splits [0, size) in bands and scans them, in parallel if an ExecutorService was given
+     */
+    private List<Ruling> scanInBands(int size, final BandScanner scanner) {
+        if (this.executor == null || this.parallelism < 2) {
+            return scanner.scan(0, size);
+        }
+
+        int bandSize = (size + this.parallelism - 1) / this.parallelism;
+        List<Future<List<Ruling>>> futures = new ArrayList<Future<List<Ruling>>>();
+        for (int from = 0; from < size; from += bandSize) {
+            final int bandFrom = from;
+            final int bandTo = Math.min(from + bandSize, size);
+            futures.add(this.executor.submit(new Callable<List<Ruling>>() {
+                @Override
+                public List<Ruling> call() {
+                    return scanner.scan(bandFrom, bandTo);
+                }
+            }));
+        }
+
+        List<Ruling> rv = new ArrayList<Ruling>();
+        try {
+            for (Future<List<Ruling>> f: futures) {
+                rv.addAll(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<Ruling>();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        return rv;
+    }
+
+    /**
+     * Gray levels of an image, one byte per pixel, row by row
+     */
+    private static final class GrayscaleImage {
+        final byte[] pixels;
+        final int width;
+        final int height;
+
+        GrayscaleImage(BufferedImage image) {
+            Raster r = image.getRaster();
+            this.width = r.getWidth();
+            this.height = r.getHeight();
+
+            SampleModel sm = r.getSampleModel();
+            if (r.getDataBuffer() instanceof DataBufferByte
+                    && sm instanceof ComponentSampleModel
+                    && sm.getNumBands() == 1
+                    && ((ComponentSampleModel) sm).getPixelStride() == 1
+                    && ((ComponentSampleModel) sm).getScanlineStride() == this.width
+                    && ((ComponentSampleModel) sm).getBandOffsets()[0] == 0
+                    && r.getDataBuffer().getOffset() == 0
+                    && r.getSampleModelTranslateX() == 0 && r.getSampleModelTranslateY() == 0) {
+                // TYPE_BYTE_GRAY images are already laid out like this
+                this.pixels = ((DataBufferByte) r.getDataBuffer()).getData();
+            }
+            else {
+                this.pixels = new byte[this.width * this.height];
+                int[] row = new int[this.width];
+                for (int y = 0; y < this.height; y++) {
+                    r.getSamples(r.getMinX(), r.getMinY() + y, this.width, 1, 0, row);
+                    for (int x = 0; x < this.width; x++) {
+                        this.pixels[y * this.width + x] = (byte) row[x];
+                    }
                 }
             }
-            newTokens.add(token);
         }
+    }
 
-        PDDocument document = new PDDocument();
-        document.addPage(page);
+    // a distance in pixels at DEFAULT_DPI, in pixels at this.dpi
+    private int pixels(int distance) {
+        return Math.round((float) distance * this.dpi / DEFAULT_DPI);
+    }
 
-        PDStream newContents = new PDStream(document);
-        ContentStreamWriter writer = new ContentStreamWriter(newContents.createOutputStream());
-        writer.writeTokens(newTokens);
-        newContents.addCompression();
-        page.setContents(newContents);
+    /**
+     * Renders the page in grayscale, as PDPage.convertToImage does, but in a single pass
+     * that produces two images: the page as is, and the page without any text.
+     *
+     * The page itself isn't modified.
+     */
+    private BufferedImage[] renderPage(PDPage page) throws IOException {
+        PDRectangle cropBox = page.findCropBox();
+        float widthPt = cropBox.getWidth();
+        float heightPt = cropBox.getHeight();
+        float scaling = this.dpi / 72f;
+        int widthPx = Math.round(widthPt * scaling);
+        int heightPx = Math.round(heightPt * scaling);
+        Dimension pageDimension = new Dimension((int) widthPt, (int) heightPt);
+
+        int rotationAngle = page.findRotation();
+        if (rotationAngle < 0) {
+            rotationAngle += 360;
+        }
+        else if (rotationAngle >= 360) {
+            rotationAngle -= 360;
+        }
 
-        try {
-            document.close();
-        } catch (Exception e) {}
+        BufferedImage[] images = new BufferedImage[2];
+        Graphics2D[] graphics = new Graphics2D[2];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = rotationAngle == 90 || rotationAngle == 270 ?
+                    new BufferedImage(heightPx, widthPx, BufferedImage.TYPE_BYTE_GRAY) :
+                    new BufferedImage(widthPx, heightPx, BufferedImage.TYPE_BYTE_GRAY);
+            graphics[i] = (Graphics2D) images[i].getGraphics();
+        }
+
+        final TeeGraphics2D tee = new TeeGraphics2D(graphics[0], graphics[1]);
+        tee.setBackground(new Color(255, 255, 255, 0));
+        tee.clearRect(0, 0, images[0].getWidth(), images[0].getHeight());
+        if (rotationAngle != 0) {
+            int translateX = 0;
+            int translateY = 0;
+            switch (rotationAngle) {
+            case 90:
+                translateX = images[0].getWidth();
+                break;
+            case 270:
+                translateY = images[0].getHeight();
+                break;
+            case 180:
+                translateX = images[0].getWidth();
+                translateY = images[0].getHeight();
+                break;
+            default:
+                break;
+            }
+            tee.translate(translateX, translateY);
+            tee.rotate((float) Math.toRadians(rotationAngle));
+        }
+        tee.scale(scaling, scaling);
+
+        // text is only drawn on the first image
+        PageDrawer drawer = new PageDrawer() {
+            @Override
+            protected void processTextPosition(TextPosition text) {
+                tee.setSecondaryDrawing(false);
+                try {
+                    super.processTextPosition(text);
+                } finally {
+                    tee.setSecondaryDrawing(true);
+                }
+            }
+        };
+        drawer.drawPage(tee, page, pageDimension);
+        tee.dispose();
+
+        return images;
     }
 }
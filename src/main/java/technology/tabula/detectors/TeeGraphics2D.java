@@ -0,0 +1,546 @@
+package technology.tabula.detectors;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+import java.util.Map;
+
+/**
+ * Graphics2D that forwards everything to two Graphics2D.
+ *
+ * State changes (transform, clip, paint, etc.) always reach both of them, but
+ * drawing operations can be kept from the secondary one with setSecondaryDrawing,
+ * so a single pass over a page can render it twice with different content.
+ */
+class TeeGraphics2D extends Graphics2D {
+
+    private final Graphics2D primary;
+    private final Graphics2D secondary;
+    private final TeeGraphics2D parent;
+    private boolean secondaryDrawing = true;
+
+    public TeeGraphics2D(Graphics2D primary, Graphics2D secondary) {
+        this(primary, secondary, null);
+    }
+
+    private TeeGraphics2D(Graphics2D primary, Graphics2D secondary, TeeGraphics2D parent) {
+        this.primary = primary;
+        this.secondary = secondary;
+        this.parent = parent;
+    }
+
+    /**
+     * Enable or disable drawing on the secondary Graphics2D (on this one and every
+     * Graphics2D created from it)
+     */
+    public void setSecondaryDrawing(boolean secondaryDrawing) {
+        this.secondaryDrawing = secondaryDrawing;
+    }
+
+    private boolean drawsSecondary() {
+        return this.parent != null ? this.parent.drawsSecondary() : this.secondaryDrawing;
+    }
+
+    // drawing
+
+    @Override
+    public void draw(Shape s) {
+        this.primary.draw(s);
+        if (this.drawsSecondary()) {
+            this.secondary.draw(s);
+        }
+    }
+
+    @Override
+    public void fill(Shape s) {
+        this.primary.fill(s);
+        if (this.drawsSecondary()) {
+            this.secondary.fill(s);
+        }
+    }
+
+    @Override
+    public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+        boolean rv = this.primary.drawImage(img, xform, obs);
+        if (this.drawsSecondary()) {
+            rv &= this.secondary.drawImage(img, xform, obs);
+        }
+        return rv;
+    }
+
+    @Override
+    public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+        this.primary.drawImage(img, op, x, y);
+        if (this.drawsSecondary()) {
+            this.secondary.drawImage(img, op, x, y);
+        }
+    }
+
+    @Override
+    public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+        this.primary.drawRenderedImage(img, xform);
+        if (this.drawsSecondary()) {
+            this.secondary.drawRenderedImage(img, xform);
+        }
+    }
+
+    @Override
+    public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+        this.primary.drawRenderableImage(img, xform);
+        if (this.drawsSecondary()) {
+            this.secondary.drawRenderableImage(img, xform);
+        }
+    }
+
+    @Override
+    public void drawString(String str, int x, int y) {
+        this.primary.drawString(str, x, y);
+        if (this.drawsSecondary()) {
+            this.secondary.drawString(str, x, y);
+        }
+    }
+
+    @Override
+    public void drawString(String str, float x, float y) {
+        this.primary.drawString(str, x, y);
+        if (this.drawsSecondary()) {
+            this.secondary.drawString(str, x, y);
+        }
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+        int start = iterator.getIndex();
+        this.primary.drawString(iterator, x, y);
+        if (this.drawsSecondary()) {
+            iterator.setIndex(start);
+            this.secondary.drawString(iterator, x, y);
+        }
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+        int start = iterator.getIndex();
+        this.primary.drawString(iterator, x, y);
+        if (this.drawsSecondary()) {
+            iterator.setIndex(start);
+            this.secondary.drawString(iterator, x, y);
+        }
+    }
+
+    @Override
+    public void drawGlyphVector(GlyphVector g, float x, float y) {
+        this.primary.drawGlyphVector(g, x, y);
+        if (this.drawsSecondary()) {
+            this.secondary.drawGlyphVector(g, x, y);
+        }
+    }
+
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+        this.primary.copyArea(x, y, width, height, dx, dy);
+        if (this.drawsSecondary()) {
+            this.secondary.copyArea(x, y, width, height, dx, dy);
+        }
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        this.primary.drawLine(x1, y1, x2, y2);
+        if (this.drawsSecondary()) {
+            this.secondary.drawLine(x1, y1, x2, y2);
+        }
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height) {
+        this.primary.fillRect(x, y, width, height);
+        if (this.drawsSecondary()) {
+            this.secondary.fillRect(x, y, width, height);
+        }
+    }
+
+    @Override
+    public void clearRect(int x, int y, int width, int height) {
+        this.primary.clearRect(x, y, width, height);
+        if (this.drawsSecondary()) {
+            this.secondary.clearRect(x, y, width, height);
+        }
+    }
+
+    @Override
+    public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        this.primary.drawRoundRect(x, y, width, height, arcWidth, arcHeight);
+        if (this.drawsSecondary()) {
+            this.secondary.drawRoundRect(x, y, width, height, arcWidth, arcHeight);
+        }
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        this.primary.fillRoundRect(x, y, width, height, arcWidth, arcHeight);
+        if (this.drawsSecondary()) {
+            this.secondary.fillRoundRect(x, y, width, height, arcWidth, arcHeight);
+        }
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        this.primary.drawOval(x, y, width, height);
+        if (this.drawsSecondary()) {
+            this.secondary.drawOval(x, y, width, height);
+        }
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        this.primary.fillOval(x, y, width, height);
+        if (this.drawsSecondary()) {
+            this.secondary.fillOval(x, y, width, height);
+        }
+    }
+
+    @Override
+    public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        this.primary.drawArc(x, y, width, height, startAngle, arcAngle);
+        if (this.drawsSecondary()) {
+            this.secondary.drawArc(x, y, width, height, startAngle, arcAngle);
+        }
+    }
+
+    @Override
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        this.primary.fillArc(x, y, width, height, startAngle, arcAngle);
+        if (this.drawsSecondary()) {
+            this.secondary.fillArc(x, y, width, height, startAngle, arcAngle);
+        }
+    }
+
+    @Override
+    public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+        this.primary.drawPolyline(xPoints, yPoints, nPoints);
+        if (this.drawsSecondary()) {
+            this.secondary.drawPolyline(xPoints, yPoints, nPoints);
+        }
+    }
+
+    @Override
+    public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        this.primary.drawPolygon(xPoints, yPoints, nPoints);
+        if (this.drawsSecondary()) {
+            this.secondary.drawPolygon(xPoints, yPoints, nPoints);
+        }
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        this.primary.fillPolygon(xPoints, yPoints, nPoints);
+        if (this.drawsSecondary()) {
+            this.secondary.fillPolygon(xPoints, yPoints, nPoints);
+        }
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+        boolean rv = this.primary.drawImage(img, x, y, observer);
+        if (this.drawsSecondary()) {
+            rv &= this.secondary.drawImage(img, x, y, observer);
+        }
+        return rv;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+        boolean rv = this.primary.drawImage(img, x, y, width, height, observer);
+        if (this.drawsSecondary()) {
+            rv &= this.secondary.drawImage(img, x, y, width, height, observer);
+        }
+        return rv;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+        boolean rv = this.primary.drawImage(img, x, y, bgcolor, observer);
+        if (this.drawsSecondary()) {
+            rv &= this.secondary.drawImage(img, x, y, bgcolor, observer);
+        }
+        return rv;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+        boolean rv = this.primary.drawImage(img, x, y, width, height, bgcolor, observer);
+        if (this.drawsSecondary()) {
+            rv &= this.secondary.drawImage(img, x, y, width, height, bgcolor, observer);
+        }
+        return rv;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+            ImageObserver observer) {
+        boolean rv = this.primary.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+        if (this.drawsSecondary()) {
+            rv &= this.secondary.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+        }
+        return rv;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+            Color bgcolor, ImageObserver observer) {
+        boolean rv = this.primary.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, bgcolor, observer);
+        if (this.drawsSecondary()) {
+            rv &= this.secondary.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, bgcolor, observer);
+        }
+        return rv;
+    }
+
+    // state, kept in sync on both
+
+    @Override
+    public Graphics create() {
+        return new TeeGraphics2D((Graphics2D) this.primary.create(), (Graphics2D) this.secondary.create(), this);
+    }
+
+    @Override
+    public void dispose() {
+        this.primary.dispose();
+        this.secondary.dispose();
+    }
+
+    @Override
+    public void setComposite(Composite comp) {
+        this.primary.setComposite(comp);
+        this.secondary.setComposite(comp);
+    }
+
+    @Override
+    public void setPaint(Paint paint) {
+        this.primary.setPaint(paint);
+        this.secondary.setPaint(paint);
+    }
+
+    @Override
+    public void setStroke(Stroke s) {
+        this.primary.setStroke(s);
+        this.secondary.setStroke(s);
+    }
+
+    @Override
+    public void setRenderingHint(RenderingHints.Key hintKey, Object hintValue) {
+        this.primary.setRenderingHint(hintKey, hintValue);
+        this.secondary.setRenderingHint(hintKey, hintValue);
+    }
+
+    @Override
+    public void setRenderingHints(Map<?, ?> hints) {
+        this.primary.setRenderingHints(hints);
+        this.secondary.setRenderingHints(hints);
+    }
+
+    @Override
+    public void addRenderingHints(Map<?, ?> hints) {
+        this.primary.addRenderingHints(hints);
+        this.secondary.addRenderingHints(hints);
+    }
+
+    @Override
+    public void translate(int x, int y) {
+        this.primary.translate(x, y);
+        this.secondary.translate(x, y);
+    }
+
+    @Override
+    public void translate(double tx, double ty) {
+        this.primary.translate(tx, ty);
+        this.secondary.translate(tx, ty);
+    }
+
+    @Override
+    public void rotate(double theta) {
+        this.primary.rotate(theta);
+        this.secondary.rotate(theta);
+    }
+
+    @Override
+    public void rotate(double theta, double x, double y) {
+        this.primary.rotate(theta, x, y);
+        this.secondary.rotate(theta, x, y);
+    }
+
+    @Override
+    public void scale(double sx, double sy) {
+        this.primary.scale(sx, sy);
+        this.secondary.scale(sx, sy);
+    }
+
+    @Override
+    public void shear(double shx, double shy) {
+        this.primary.shear(shx, shy);
+        this.secondary.shear(shx, shy);
+    }
+
+    @Override
+    public void transform(AffineTransform tx) {
+        this.primary.transform(tx);
+        this.secondary.transform(tx);
+    }
+
+    @Override
+    public void setTransform(AffineTransform tx) {
+        this.primary.setTransform(tx);
+        this.secondary.setTransform(tx);
+    }
+
+    @Override
+    public void setBackground(Color color) {
+        this.primary.setBackground(color);
+        this.secondary.setBackground(color);
+    }
+
+    @Override
+    public void clip(Shape s) {
+        this.primary.clip(s);
+        this.secondary.clip(s);
+    }
+
+    @Override
+    public void setColor(Color c) {
+        this.primary.setColor(c);
+        this.secondary.setColor(c);
+    }
+
+    @Override
+    public void setPaintMode() {
+        this.primary.setPaintMode();
+        this.secondary.setPaintMode();
+    }
+
+    @Override
+    public void setXORMode(Color c1) {
+        this.primary.setXORMode(c1);
+        this.secondary.setXORMode(c1);
+    }
+
+    @Override
+    public void setFont(Font font) {
+        this.primary.setFont(font);
+        this.secondary.setFont(font);
+    }
+
+    @Override
+    public void clipRect(int x, int y, int width, int height) {
+        this.primary.clipRect(x, y, width, height);
+        this.secondary.clipRect(x, y, width, height);
+    }
+
+    @Override
+    public void setClip(int x, int y, int width, int height) {
+        this.primary.setClip(x, y, width, height);
+        this.secondary.setClip(x, y, width, height);
+    }
+
+    @Override
+    public void setClip(Shape clip) {
+        this.primary.setClip(clip);
+        this.secondary.setClip(clip);
+    }
+
+    // queries, answered by the primary
+
+    @Override
+    public boolean hit(Rectangle rect, Shape s, boolean onStroke) {
+        return this.primary.hit(rect, s, onStroke);
+    }
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return this.primary.getDeviceConfiguration();
+    }
+
+    @Override
+    public Object getRenderingHint(RenderingHints.Key hintKey) {
+        return this.primary.getRenderingHint(hintKey);
+    }
+
+    @Override
+    public RenderingHints getRenderingHints() {
+        return this.primary.getRenderingHints();
+    }
+
+    @Override
+    public AffineTransform getTransform() {
+        return this.primary.getTransform();
+    }
+
+    @Override
+    public Paint getPaint() {
+        return this.primary.getPaint();
+    }
+
+    @Override
+    public Composite getComposite() {
+        return this.primary.getComposite();
+    }
+
+    @Override
+    public Color getBackground() {
+        return this.primary.getBackground();
+    }
+
+    @Override
+    public Stroke getStroke() {
+        return this.primary.getStroke();
+    }
+
+    @Override
+    public FontRenderContext getFontRenderContext() {
+        return this.primary.getFontRenderContext();
+    }
+
+    @Override
+    public Color getColor() {
+        return this.primary.getColor();
+    }
+
+    @Override
+    public Font getFont() {
+        return this.primary.getFont();
+    }
+
+    @Override
+    public FontMetrics getFontMetrics(Font f) {
+        return this.primary.getFontMetrics(f);
+    }
+
+    @Override
+    public Rectangle getClipBounds() {
+        return this.primary.getClipBounds();
+    }
+
+    @Override
+    public Shape getClip() {
+        return this.primary.getClip();
+    }
+
+}
@@ -3,6 +3,7 @@ package technology.tabula.extractors;
 import java.awt.geom.Point2D;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -29,57 +30,73 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
     
     private static final float MAGIC_HEURISTIC_NUMBER = 0.65f;
     
-    private static final Comparator<Point2D> POINT_COMPARATOR = new Comparator<Point2D>() {
+    /**
+     * A point with its coordinates rounded once, so sorting doesn't
+     * round them again on every comparison
+     */
+    private static class RoundedPoint {
+        final Point2D point;
+        final float x;
+        final float y;
+
+        RoundedPoint(Point2D point) {
+            this.point = point;
+            this.x = Utils.round(point.getX(), 2);
+            this.y = Utils.round(point.getY(), 2);
+        }
+    }
+
+    private static final Comparator<RoundedPoint> POINT_COMPARATOR = new Comparator<RoundedPoint>() {
         @Override
-        public int compare(Point2D arg0, Point2D arg1) {
+        public int compare(RoundedPoint arg0, RoundedPoint arg1) {
             int rv = 0;
-            float arg0X = Utils.round(arg0.getX(), 2);
-            float arg0Y = Utils.round(arg0.getY(), 2);
-            float arg1X = Utils.round(arg1.getX(), 2);
-            float arg1Y = Utils.round(arg1.getY(), 2);
-            
-            
-            if (arg0Y > arg1Y) {
+            if (arg0.y > arg1.y) {
                 rv = 1;
             }
-            else if (arg0Y < arg1Y) {
+            else if (arg0.y < arg1.y) {
                 rv = -1;
             }
-            else if (arg0X > arg1X) {
+            else if (arg0.x > arg1.x) {
                 rv = 1;
             }
-            else if (arg0X < arg1X) {
+            else if (arg0.x < arg1.x) {
                 rv = -1;
             }
             return rv;
         }
     };
-    
-    private static final Comparator<Point2D> X_FIRST_POINT_COMPARATOR = new Comparator<Point2D>() {
+
+    private static final Comparator<RoundedPoint> X_FIRST_POINT_COMPARATOR = new Comparator<RoundedPoint>() {
         @Override
-        public int compare(Point2D arg0, Point2D arg1) {
+        public int compare(RoundedPoint arg0, RoundedPoint arg1) {
             int rv = 0;
-            float arg0X = Utils.round(arg0.getX(), 2);
-            float arg0Y = Utils.round(arg0.getY(), 2);
-            float arg1X = Utils.round(arg1.getX(), 2);
-            float arg1Y = Utils.round(arg1.getY(), 2);
-            
-            if (arg0X > arg1X) {
+            if (arg0.x > arg1.x) {
                 rv = 1;
             }
-            else if (arg0X < arg1X) {
+            else if (arg0.x < arg1.x) {
                 rv = -1;
             }
-            else if (arg0Y > arg1Y) {
+            else if (arg0.y > arg1.y) {
                 rv = 1;
             }
-            else if (arg0Y < arg1Y) {
+            else if (arg0.y < arg1.y) {
                 rv = -1;
             }
             return rv;
         }
     };
 
+    private static void sortPoints(List<Point2D> points, Comparator<RoundedPoint> comparator) {
+        List<RoundedPoint> rounded = new ArrayList<RoundedPoint>(points.size());
+        for (Point2D p: points) {
+            rounded.add(new RoundedPoint(p));
+        }
+        Collections.sort(rounded, comparator);
+        for (int i = 0; i < rounded.size(); i++) {
+            points.set(i, rounded.get(i).point);
+        }
+    }
+
     
     @Override
     public List<? extends Table> extract(Page page) {
@@ -90,6 +107,18 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
      * Extract a list of Table from page using rulings as separators
      */
     public List<? extends Table> extract(Page page, List<Ruling> rulings) {
+        List<TableWithRulingLines> spreadsheets = findTables(page, rulings, true);
+        for (TableWithRulingLines t: spreadsheets) {
+            t.setExtractionAlgorithm(this);
+        }
+        return spreadsheets;
+    }
+
+    /**
+     * The tables of page, sorted, with the text of their cells if withText.
+     * Their rows and columns don't depend on the text.
+     */
+    private static List<TableWithRulingLines> findTables(Page page, List<Ruling> rulings, boolean withText) {
         // split rulings into horizontal and vertical
         List<Ruling> horizontalR = new ArrayList<Ruling>(), 
                 verticalR = new ArrayList<Ruling>();
@@ -114,8 +143,9 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
             List<Cell> overlappingCells = new ArrayList<Cell>();
             for (Cell c: cells) {
                 if (c.intersects(area)) {
-
-                    c.setTextElements(TextElement.mergeWords(page.getText(c)));
+                    if (withText) {
+                        c.setTextElements(TextElement.mergeWords(page.getText(c)));
+                    }
                     overlappingCells.add(c);
                 }
             }
@@ -136,8 +166,6 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
             TableWithRulingLines t = new TableWithRulingLines(area, page, overlappingCells,
                     horizontalOverlappingRulings, verticalOverlappingRulings);
             
-            t.setExtractionAlgorithm(this);
-            
             spreadsheets.add(t);
         }
         Utils.sort(spreadsheets);
@@ -150,7 +178,8 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
         // removes white "margins")
         Page minimalRegion = page.getArea(Utils.bounds(page.getText()));
         
-        List<? extends Table> tables = new SpreadsheetExtractionAlgorithm().extract(minimalRegion);
+        // only the rows and columns are counted, the cells don't need their text
+        List<? extends Table> tables = findTables(minimalRegion, minimalRegion.getRulings(), false);
         if (tables.size() == 0) {
             return false;
         }
@@ -175,46 +204,56 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
         List<Cell> cellsFound = new ArrayList<Cell>();
         Map<Point2D, Ruling[]> intersectionPoints = Ruling.findIntersections(horizontalRulingLines, verticalRulingLines);
         List<Point2D> intersectionPointsList = new ArrayList<Point2D>(intersectionPoints.keySet());
-        Collections.sort(intersectionPointsList, POINT_COMPARATOR); 
-        boolean doBreak = false;
-        
-        for (int i = 0; i < intersectionPointsList.size(); i++) {
-            Point2D topLeft = intersectionPointsList.get(i);
-            Ruling[] hv = intersectionPoints.get(topLeft);
-            doBreak = false;
-            
-            // CrossingPointsDirectlyBelow( topLeft );
-            List<Point2D> xPoints = new ArrayList<Point2D>();
-            // CrossingPointsDirectlyToTheRight( topLeft );
-            List<Point2D> yPoints = new ArrayList<Point2D>();
+        sortPoints(intersectionPointsList, POINT_COMPARATOR);
+
+        // index the crossing points by row (same y, sorted by x) and by
+        // column (same x, sorted by y), so the points directly below and
+        // directly to the right of a point are the ones that follow it there
+        final int n = intersectionPointsList.size();
+        final double[] xs = new double[n];
+        final double[] ys = new double[n];
+        Ruling[][] rulings = new Ruling[n][];
+        for (int i = 0; i < n; i++) {
+            Point2D p = intersectionPointsList.get(i);
+            xs[i] = p.getX();
+            ys[i] = p.getY();
+            rulings[i] = intersectionPoints.get(p);
+        }
+        int[] rows = sortedIndexes(ys, xs);
+        int[] cols = sortedIndexes(xs, ys);
+        int[] rowPos = new int[n];
+        int[] colPos = new int[n];
+        for (int i = 0; i < n; i++) {
+            rowPos[rows[i]] = i;
+            colPos[cols[i]] = i;
+        }
+
+        for (int topLeft = 0; topLeft < n; topLeft++) {
+            Ruling[] hv = rulings[topLeft];
 
-            for (Point2D p: intersectionPointsList.subList(i, intersectionPointsList.size())) {
-                if (p.getX() == topLeft.getX() && p.getY() > topLeft.getY()) {
-                    xPoints.add(p);
-                }
-                if (p.getY() == topLeft.getY() && p.getX() > topLeft.getX()) {
-                    yPoints.add(p);
-                }
-            }
             outer:
-            for (Point2D xPoint: xPoints) {
-                if (doBreak) { break; }
+            // CrossingPointsDirectlyBelow( topLeft );
+            for (int c = colPos[topLeft] + 1; c < n && xs[cols[c]] == xs[topLeft]; c++) {
+                int xPoint = cols[c];
 
                 // is there a vertical edge b/w topLeft and xPoint?
-                if (!hv[1].equals(intersectionPoints.get(xPoint)[1])) {
+                if (!hv[1].equals(rulings[xPoint][1])) {
                     continue;
                 }
-                for (Point2D yPoint: yPoints) {
+                // CrossingPointsDirectlyToTheRight( topLeft );
+                for (int r = rowPos[topLeft] + 1; r < n && ys[rows[r]] == ys[topLeft]; r++) {
+                    int yPoint = rows[r];
+
                     // is there an horizontal edge b/w topLeft and yPoint ?
-                    if (!hv[0].equals(intersectionPoints.get(yPoint)[0])) {
+                    if (!hv[0].equals(rulings[yPoint][0])) {
                         continue;
                     }
-                    Point2D btmRight = new Point2D.Float((float) yPoint.getX(), (float) xPoint.getY());
-                    if (intersectionPoints.containsKey(btmRight) 
-                            && intersectionPoints.get(btmRight)[0].equals(intersectionPoints.get(xPoint)[0])
-                            && intersectionPoints.get(btmRight)[1].equals(intersectionPoints.get(yPoint)[1])) {
-                            cellsFound.add(new Cell(topLeft, btmRight));
-                        doBreak = true;
+                    int btmRight = indexOf(rows, ys, xs, ys[xPoint], xs[yPoint]);
+                    if (btmRight >= 0
+                            && rulings[btmRight][0].equals(rulings[xPoint][0])
+                            && rulings[btmRight][1].equals(rulings[yPoint][1])) {
+                        cellsFound.add(new Cell(intersectionPointsList.get(topLeft),
+                                new Point2D.Float((float) xs[yPoint], (float) ys[xPoint])));
                         break outer;
                     }
                 }
@@ -227,6 +266,53 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
         
         return cellsFound;
     }
+
+    // indexes of the points, sorted by their primary coordinate, then by the secondary one
+    private static int[] sortedIndexes(final double[] primary, final double[] secondary) {
+        Integer[] indexes = new Integer[primary.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer arg0, Integer arg1) {
+                return comparePoints(primary[arg0], secondary[arg0], primary[arg1], secondary[arg1]);
+            }
+        });
+        int[] rv = new int[indexes.length];
+        for (int i = 0; i < rv.length; i++) {
+            rv[i] = indexes[i];
+        }
+        return rv;
+    }
+
+    // binary search on indexes sorted by sortedIndexes(primary, secondary)
+    private static int indexOf(int[] sorted, double[] primary, double[] secondary, double p, double s) {
+        int low = 0;
+        int high = sorted.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = comparePoints(primary[sorted[mid]], secondary[sorted[mid]], p, s);
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return sorted[mid];
+            }
+        }
+        return -1;
+    }
+
+    private static int comparePoints(double p0, double s0, double p1, double s1) {
+        if (p0 > p1) return  1;
+        if (p0 < p1) return -1;
+        if (s0 > s1) return  1;
+        if (s0 < s1) return -1;
+        return 0;
+    }
     
     public static List<Rectangle> findSpreadsheetsFromCells(List<? extends Rectangle> cells) {
         // via: http://stackoverflow.com/questions/13746284/merging-multiple-adjacent-rectangles-into-one-polygon
@@ -253,10 +339,10 @@ public class SpreadsheetExtractionAlgorithm implements ExtractionAlgorithm {
         
         // X first sort
         List<Point2D> pointsSortX = new ArrayList<Point2D>(pointSet);
-        Collections.sort(pointsSortX, X_FIRST_POINT_COMPARATOR);
+        sortPoints(pointsSortX, X_FIRST_POINT_COMPARATOR);
         // Y first sort
         List<Point2D> pointsSortY = new ArrayList<Point2D>(pointSet);
-        Collections.sort(pointsSortY, POINT_COMPARATOR);
+        sortPoints(pointsSortY, POINT_COMPARATOR);
         
         while (i < pointSet.size()) {
             float currY = (float) pointsSortY.get(i).getY();
@@ -1,40 +1,36 @@
 package technology.tabula.json;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.reflect.Type;
-import java.util.List;
 
-import technology.tabula.RectangularTextContainer;
 import technology.tabula.Table;
+import technology.tabula.writers.JSONWriter;
 
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonWriter;
 
+/**
+ * Serializes a table as JSONWriter writes it, which it reads back as a tree.
+ */
 public class TableSerializer implements JsonSerializer<Table> {
 
     @Override
     public JsonElement serialize(Table table, Type type,
             JsonSerializationContext context) {
         
-        JsonObject object = new JsonObject();
-        object.addProperty("extraction_method", table.getExtractionAlgorithm().toString());
-        object.addProperty("top", table.getTop());
-        object.addProperty("left", table.getLeft());
-        object.addProperty("width", table.getWidth());
-        object.addProperty("height", table.getHeight());
-        
-        JsonArray jsonDataArray = new JsonArray();
-        for (List<RectangularTextContainer> row: table.getRows()) {
-            JsonArray jsonRowArray = new JsonArray();
-            for (RectangularTextContainer textChunk: row) {
-                jsonRowArray.add(context.serialize(textChunk));
-            }
-            jsonDataArray.add(jsonRowArray);
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true);
+        try {
+            JSONWriter.writeTable(writer, table);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
         }
-        object.add("data", jsonDataArray);
-        
-        return object;
+        return new JsonParser().parse(out.toString());
     }
-}
\ No newline at end of file
+}
@@ -1,27 +1,35 @@
 package technology.tabula.json;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.reflect.Type;
 
 import technology.tabula.RectangularTextContainer;
+import technology.tabula.writers.JSONWriter;
 
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonWriter;
 
+/**
+ * Serializes a cell as JSONWriter writes it, which it reads back as a tree.
+ */
 public class TextChunkSerializer implements JsonSerializer<RectangularTextContainer> {
 
     @Override
     public JsonElement serialize(RectangularTextContainer textChunk, Type arg1,
             JsonSerializationContext context) {
-        JsonObject object = new JsonObject();
-        
-        object.addProperty("top", textChunk.getTop());
-        object.addProperty("left", textChunk.getLeft());
-        object.addProperty("width", textChunk.getWidth());
-        object.addProperty("height", textChunk.getHeight());
-        object.addProperty("text", textChunk.getText());
-
-        return object;
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true);
+        try {
+            JSONWriter.writeTextChunk(writer, textChunk);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return new JsonParser().parse(out.toString());
     }
-}
\ No newline at end of file
+}
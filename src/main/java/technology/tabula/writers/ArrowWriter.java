@@ -0,0 +1,535 @@
+package technology.tabula.writers;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import technology.tabula.RectangularTextContainer;
+import technology.tabula.Table;
+
+/**
+ * Writes tables as an Apache Arrow IPC stream (what pyarrow.ipc.open_stream
+ * or ArrowStreamReader read), with a row per cell and typed columns:
+ *
+ * page (int32, 0 if the table has no page), table (int32, the index of the
+ * table in the stream), extraction_method (utf8), table_top, table_left,
+ * table_width, table_height (float32), row, col (int32), top, left, width,
+ * height (float32) and text (utf8). Every position of the rows of a table
+ * has one, like in the other writers, with empty text where there's no cell.
+ *
+ * Rows are written in record batches of batchSize rows, so only one batch
+ * is held in memory. close() writes the last batch and the end of the
+ * stream.
+ */
+public class ArrowWriter implements Closeable, Flushable {
+
+    public static final int DEFAULT_BATCH_SIZE = 65536;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Type union of Schema.fbs
+    private static final byte INT = 2, FLOATING_POINT = 3, UTF8 = 5;
+    // MessageHeader union of Message.fbs
+    private static final byte SCHEMA = 1, RECORD_BATCH = 3;
+    private static final short METADATA_V5 = 4;
+    private static final short PRECISION_SINGLE = 1;
+    private static final short ENDIANNESS_LITTLE = 0;
+
+    private static final String[] NAMES = { "page", "table", "extraction_method",
+        "table_top", "table_left", "table_width", "table_height",
+        "row", "col", "top", "left", "width", "height", "text" };
+    private static final byte[] TYPES = { INT, INT, UTF8,
+        FLOATING_POINT, FLOATING_POINT, FLOATING_POINT, FLOATING_POINT,
+        INT, INT, FLOATING_POINT, FLOATING_POINT, FLOATING_POINT, FLOATING_POINT, UTF8 };
+
+    private final OutputStream out;
+    private final int batchSize;
+    private final IntColumn pageColumn = new IntColumn(), tableColumn = new IntColumn();
+    private final Utf8Column methodColumn = new Utf8Column();
+    private final FloatColumn tableTopColumn = new FloatColumn(), tableLeftColumn = new FloatColumn(),
+            tableWidthColumn = new FloatColumn(), tableHeightColumn = new FloatColumn();
+    private final IntColumn rowColumn = new IntColumn(), colColumn = new IntColumn();
+    private final FloatColumn topColumn = new FloatColumn(), leftColumn = new FloatColumn(),
+            widthColumn = new FloatColumn(), heightColumn = new FloatColumn();
+    private final Utf8Column textColumn = new Utf8Column();
+    // in the order of NAMES
+    private final Column[] columns = { this.pageColumn, this.tableColumn, this.methodColumn,
+        this.tableTopColumn, this.tableLeftColumn, this.tableWidthColumn, this.tableHeightColumn,
+        this.rowColumn, this.colColumn, this.topColumn, this.leftColumn, this.widthColumn, this.heightColumn,
+        this.textColumn };
+    private int rows = 0;
+    private int tables = 0;
+    private boolean schemaWritten = false;
+    private boolean closed = false;
+
+    public ArrowWriter(OutputStream out) {
+        this(out, DEFAULT_BATCH_SIZE);
+    }
+
+    public ArrowWriter(OutputStream out, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.out = out;
+        this.batchSize = batchSize;
+    }
+
+    public void write(Table table) throws IOException {
+        if (this.closed) {
+            throw new IOException("ArrowWriter is closed");
+        }
+        int page = table.getPage() == null ? 0 : table.getPage().getPageNumber();
+        int index = this.tables++;
+        byte[] method = table.getExtractionAlgorithm() == null ?
+                new byte[0] : table.getExtractionAlgorithm().toString().getBytes(UTF_8);
+
+        List<List<RectangularTextContainer>> tableRows = table.getRows();
+        for (int i = 0; i < tableRows.size(); i++) {
+            List<RectangularTextContainer> row = tableRows.get(i);
+            for (int j = 0; j < row.size(); j++) {
+                RectangularTextContainer cell = row.get(j);
+                this.pageColumn.put(page);
+                this.tableColumn.put(index);
+                this.methodColumn.put(method);
+                this.tableTopColumn.put(table.getTop());
+                this.tableLeftColumn.put(table.getLeft());
+                this.tableWidthColumn.put((float) table.getWidth());
+                this.tableHeightColumn.put((float) table.getHeight());
+                this.rowColumn.put(i);
+                this.colColumn.put(j);
+                this.topColumn.put(cell.getTop());
+                this.leftColumn.put(cell.getLeft());
+                this.widthColumn.put((float) cell.getWidth());
+                this.heightColumn.put((float) cell.getHeight());
+                this.textColumn.put(cell.getText().getBytes(UTF_8));
+                if (++this.rows == this.batchSize) {
+                    writeBatch();
+                }
+            }
+        }
+    }
+
+    public void write(List<Table> tables) throws IOException {
+        for (Table table: tables) {
+            write(table);
+        }
+    }
+
+    /**
+     * Writes the rows so far as a record batch, and flushes the output
+     */
+    @Override
+    public void flush() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        writeBatch();
+        this.out.flush();
+    }
+
+    /**
+     * Writes the rows left and the end of the stream, and closes the output
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        writeBatch();
+        // end-of-stream marker
+        writeInt(this.out, 0xFFFFFFFF);
+        writeInt(this.out, 0);
+        this.closed = true;
+        this.out.close();
+    }
+
+    private void writeSchema() throws IOException {
+        FlatBufferBuilder fb = new FlatBufferBuilder();
+        int[] fields = new int[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            if (TYPES[i] == INT) {
+                fb.startTable(2);
+                fb.addInt(0, 32); // bitWidth
+                fb.addBoolean(1, true); // is_signed
+            }
+            else if (TYPES[i] == FLOATING_POINT) {
+                fb.startTable(1);
+                fb.addShort(0, PRECISION_SINGLE);
+            }
+            else {
+                fb.startTable(0);
+            }
+            int type = fb.endTable();
+            int name = fb.createString(NAMES[i].getBytes(UTF_8));
+            fb.startVector(4, 0, 4);
+            int children = fb.endVector(0);
+
+            fb.startTable(7);
+            fb.addOffset(0, name);
+            fb.addOffset(3, type);
+            fb.addOffset(5, children);
+            fb.addBoolean(1, false); // nullable
+            fb.addByte(2, TYPES[i]);
+            fields[i] = fb.endTable();
+        }
+        fb.startVector(4, fields.length, 4);
+        for (int i = fields.length - 1; i >= 0; i--) {
+            fb.addOffset(fields[i]);
+        }
+        int fieldVector = fb.endVector(fields.length);
+
+        fb.startTable(4);
+        fb.addOffset(1, fieldVector);
+        fb.addShort(0, ENDIANNESS_LITTLE);
+        int schema = fb.endTable();
+
+        writeMessage(fb, SCHEMA, schema, 0);
+        this.schemaWritten = true;
+    }
+
+    private void writeBatch() throws IOException {
+        if (!this.schemaWritten) {
+            writeSchema();
+        }
+        if (this.rows == 0) {
+            return;
+        }
+
+        // a validity buffer (empty, there are no nulls) and the data buffers of every column
+        int bufferCount = 0;
+        for (Column column: this.columns) {
+            bufferCount += 1 + column.buffers().length;
+        }
+        long[] offsets = new long[bufferCount], lengths = new long[bufferCount];
+        long bodyLength = 0;
+        int b = 0;
+        for (Column column: this.columns) {
+            offsets[b] = bodyLength;
+            lengths[b++] = 0;
+            for (ByteArray buffer: column.buffers()) {
+                offsets[b] = bodyLength;
+                lengths[b++] = buffer.size();
+                bodyLength += padding(buffer.size()) + buffer.size();
+            }
+        }
+
+        FlatBufferBuilder fb = new FlatBufferBuilder();
+        fb.startVector(16, bufferCount, 8);
+        for (int i = bufferCount - 1; i >= 0; i--) {
+            // struct Buffer { offset: long; length: long; }
+            fb.prep(8, 16);
+            fb.putLong(lengths[i]);
+            fb.putLong(offsets[i]);
+        }
+        int buffers = fb.endVector(bufferCount);
+        fb.startVector(16, this.columns.length, 8);
+        for (int i = this.columns.length - 1; i >= 0; i--) {
+            // struct FieldNode { length: long; null_count: long; }
+            fb.prep(8, 16);
+            fb.putLong(0);
+            fb.putLong(this.rows);
+        }
+        int nodes = fb.endVector(this.columns.length);
+
+        fb.startTable(5);
+        fb.addLong(0, this.rows);
+        fb.addOffset(1, nodes);
+        fb.addOffset(2, buffers);
+        int batch = fb.endTable();
+
+        writeMessage(fb, RECORD_BATCH, batch, bodyLength);
+        for (Column column: this.columns) {
+            for (ByteArray buffer: column.buffers()) {
+                buffer.writeTo(this.out);
+                this.out.write(new byte[padding(buffer.size())]);
+            }
+            column.clear();
+        }
+        this.rows = 0;
+    }
+
+    // an encapsulated message: continuation marker, metadata length, the
+    // Message flatbuffer padded to 8 bytes, then the body written by the caller
+    private void writeMessage(FlatBufferBuilder fb, byte headerType, int header, long bodyLength) throws IOException {
+        fb.startTable(5);
+        fb.addLong(3, bodyLength);
+        fb.addOffset(2, header);
+        fb.addShort(0, METADATA_V5);
+        fb.addByte(1, headerType);
+        fb.finish(fb.endTable());
+
+        byte[] metadata = fb.toByteArray();
+        writeInt(this.out, 0xFFFFFFFF);
+        writeInt(this.out, metadata.length + padding(metadata.length));
+        this.out.write(metadata);
+        this.out.write(new byte[padding(metadata.length)]);
+    }
+
+    // to the next multiple of 8
+    private static int padding(int length) {
+        return -length & 7;
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static abstract class Column {
+        abstract ByteArray[] buffers();
+
+        abstract void clear();
+    }
+
+    // int32 and float32 columns: the values one after another
+    private static abstract class FixedColumn extends Column {
+        final ByteArray values = new ByteArray();
+
+        @Override
+        ByteArray[] buffers() {
+            return new ByteArray[] { this.values };
+        }
+
+        @Override
+        void clear() {
+            this.values.clear();
+        }
+    }
+
+    private static class IntColumn extends FixedColumn {
+        void put(int value) {
+            this.values.putInt(value);
+        }
+    }
+
+    private static class FloatColumn extends FixedColumn {
+        void put(float value) {
+            this.values.putInt(Float.floatToRawIntBits(value));
+        }
+    }
+
+    // utf8 columns: the offset of every value in the data, and one past the last
+    private static class Utf8Column extends Column {
+        private final ByteArray offsets = new ByteArray();
+        private final ByteArray data = new ByteArray();
+
+        Utf8Column() {
+            this.offsets.putInt(0);
+        }
+
+        void put(byte[] value) {
+            this.data.put(value, 0, value.length);
+            this.offsets.putInt(this.data.size());
+        }
+
+        @Override
+        ByteArray[] buffers() {
+            return new ByteArray[] { this.offsets, this.data };
+        }
+
+        @Override
+        void clear() {
+            this.offsets.clear();
+            this.data.clear();
+            this.offsets.putInt(0);
+        }
+    }
+
+    // a growable little-endian buffer
+    private static class ByteArray {
+        private byte[] bytes = new byte[1024];
+        private int size = 0;
+
+        int size() {
+            return this.size;
+        }
+
+        void put(byte[] value, int offset, int length) {
+            ensure(length);
+            System.arraycopy(value, offset, this.bytes, this.size, length);
+            this.size += length;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            this.bytes[this.size++] = (byte) value;
+            this.bytes[this.size++] = (byte) (value >>> 8);
+            this.bytes[this.size++] = (byte) (value >>> 16);
+            this.bytes[this.size++] = (byte) (value >>> 24);
+        }
+
+        void clear() {
+            this.size = 0;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(this.bytes, 0, this.size);
+        }
+
+        private void ensure(int length) {
+            if (this.size + length > this.bytes.length) {
+                byte[] grown = new byte[Math.max(this.bytes.length * 2, this.size + length)];
+                System.arraycopy(this.bytes, 0, grown, 0, this.size);
+                this.bytes = grown;
+            }
+        }
+    }
+
+    /**
+     * The part of the FlatBuffers builder the Arrow metadata needs: like the
+     * reference implementation, it builds the buffer from the end, so that
+     * children come before (after, in the buffer) the tables pointing to them,
+     * and offsets are counted from the end.
+     */
+    static class FlatBufferBuilder {
+        private byte[] bytes = new byte[256];
+        private int space = this.bytes.length; // start of the data written
+        private int minAlign = 1;
+        private int[] vtable;
+        private int objectStart;
+
+        int offset() {
+            return this.bytes.length - this.space;
+        }
+
+        // pads so that, after additionalBytes are written, the data is aligned to size
+        void prep(int size, int additionalBytes) {
+            if (size > this.minAlign) {
+                this.minAlign = size;
+            }
+            int alignSize = -(offset() + additionalBytes) & (size - 1);
+            while (this.space < alignSize + size + additionalBytes) {
+                int length = this.bytes.length;
+                byte[] grown = new byte[length * 2];
+                System.arraycopy(this.bytes, 0, grown, length, length);
+                this.bytes = grown;
+                this.space += length;
+            }
+            this.space -= alignSize; // already zeros
+        }
+
+        void putByte(byte value) {
+            this.bytes[--this.space] = value;
+        }
+
+        void putShort(short value) {
+            this.space -= 2;
+            this.bytes[this.space] = (byte) value;
+            this.bytes[this.space + 1] = (byte) (value >>> 8);
+        }
+
+        void putInt(int value) {
+            this.space -= 4;
+            for (int i = 0; i < 4; i++) {
+                this.bytes[this.space + i] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        void putLong(long value) {
+            this.space -= 8;
+            for (int i = 0; i < 8; i++) {
+                this.bytes[this.space + i] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        // an offset to data written before, relative to where it's stored
+        void addOffset(int offset) {
+            prep(4, 0);
+            putInt(offset() - offset + 4);
+        }
+
+        int createString(byte[] utf8) {
+            prep(4, utf8.length + 1);
+            putByte((byte) 0);
+            this.space -= utf8.length;
+            System.arraycopy(utf8, 0, this.bytes, this.space, utf8.length);
+            putInt(utf8.length);
+            return offset();
+        }
+
+        // elements are then written last to first
+        void startVector(int elementSize, int count, int alignment) {
+            prep(4, elementSize * count);
+            prep(alignment, elementSize * count);
+        }
+
+        int endVector(int count) {
+            putInt(count);
+            return offset();
+        }
+
+        void startTable(int fields) {
+            this.vtable = new int[fields];
+            this.objectStart = offset();
+        }
+
+        void addByte(int field, byte value) {
+            prep(1, 0);
+            putByte(value);
+            this.vtable[field] = offset();
+        }
+
+        void addBoolean(int field, boolean value) {
+            addByte(field, (byte) (value ? 1 : 0));
+        }
+
+        void addShort(int field, short value) {
+            prep(2, 0);
+            putShort(value);
+            this.vtable[field] = offset();
+        }
+
+        void addInt(int field, int value) {
+            prep(4, 0);
+            putInt(value);
+            this.vtable[field] = offset();
+        }
+
+        void addLong(int field, long value) {
+            prep(8, 0);
+            putLong(value);
+            this.vtable[field] = offset();
+        }
+
+        void addOffset(int field, int offset) {
+            addOffset(offset);
+            this.vtable[field] = offset();
+        }
+
+        // the table starts with the offset of its vtable, written just before it
+        int endTable() {
+            prep(4, 0);
+            putInt(0);
+            int tableOffset = offset();
+            for (int i = this.vtable.length - 1; i >= 0; i--) {
+                putShort((short) (this.vtable[i] != 0 ? tableOffset - this.vtable[i] : 0));
+            }
+            putShort((short) (tableOffset - this.objectStart));
+            putShort((short) ((this.vtable.length + 2) * 2));
+            int vtableOffset = offset();
+            int at = this.bytes.length - tableOffset;
+            int soffset = vtableOffset - tableOffset;
+            for (int i = 0; i < 4; i++) {
+                this.bytes[at + i] = (byte) (soffset >>> (8 * i));
+            }
+            this.vtable = null;
+            return tableOffset;
+        }
+
+        void finish(int root) {
+            prep(this.minAlign, 4);
+            addOffset(root);
+        }
+
+        byte[] toByteArray() {
+            byte[] rv = new byte[offset()];
+            System.arraycopy(this.bytes, this.space, rv, 0, rv.length);
+            return rv;
+        }
+    }
+}
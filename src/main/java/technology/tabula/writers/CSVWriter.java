@@ -1,49 +1,85 @@
 package technology.tabula.writers;
 
+import java.io.Flushable;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.CharBuffer;
 import java.util.List;
 
-import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.csv.CSVFormat;
-
 import technology.tabula.RectangularTextContainer;
 import technology.tabula.Table;
 
+/**
+ * Writes tables as CSV, as CSVPrinter does with CSVFormat.EXCEL (and
+ * CSVFormat.TDF, in TSVWriter), but without a List of Strings per row:
+ * the text of every cell is appended to a reused buffer, and quoted from
+ * there into the line written to the output.
+ *
+ * Not to be used by several threads at once.
+ */
 public class CSVWriter implements Writer {
-    
-    CSVPrinter printer;
+
+    private static final char QUOTE = '"';
+    private static final String[] NO_FIELDS = {};
+
+    private final char delimiter;
     private boolean useLineReturns = true;
-    
-//    public CSVWriter() {
-//        super();
-//    }
-//    
+    private final StringBuilder text = new StringBuilder();
+    private char[] line = new char[1024];
+    private int length;
+
+    public CSVWriter() {
+        this(',');
+    }
+
+    CSVWriter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
 //    public CSVWriter(boolean useLineReturns) {
 //        super();
 //        this.useLineReturns = useLineReturns;
 //    }
-    
-    void createWriter(Appendable out) {
-        try {
-            this.printer = new CSVPrinter(out, CSVFormat.EXCEL);
-        } catch (IOException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-    }
-    
+
     @Override
     public void write(Appendable out, Table table) throws IOException {
-        this.createWriter(out);
+        write(out, table, NO_FIELDS);
+    }
+
+    /**
+     * Writes table with leadingFields before the cells of every row, like the
+     * file and the page of the table when several files are written together
+     */
+    public void write(Appendable out, Table table, String[] leadingFields) throws IOException {
         for (List<RectangularTextContainer> row: table.getRows()) {
-            List<String> cells = new ArrayList<String>(row.size());
-            for (RectangularTextContainer tc: row) {
-                cells.add(tc.getText());
+            this.length = 0;
+            for (int i = 0; i < leadingFields.length; i++) {
+                if (i > 0) {
+                    put(this.delimiter);
+                }
+                this.text.setLength(0);
+                this.text.append(leadingFields[i]);
+                putField(this.text, i == 0);
+            }
+            for (int i = 0; i < row.size(); i++) {
+                if (i > 0 || leadingFields.length > 0) {
+                    put(this.delimiter);
+                }
+                this.text.setLength(0);
+                row.get(i).appendText(this.text);
+                putField(this.text, i == 0 && leadingFields.length == 0);
+            }
+            put('\r');
+            put('\n');
+            if (out instanceof java.io.Writer) {
+                ((java.io.Writer) out).write(this.line, 0, this.length);
             }
-            this.printer.printRecord(cells);
+            else {
+                out.append(CharBuffer.wrap(this.line, 0, this.length));
+            }
+        }
+        if (out instanceof Flushable) {
+            ((Flushable) out).flush();
         }
-        printer.flush();
     }
 
 	@Override
@@ -51,7 +87,60 @@ public class CSVWriter implements Writer {
 		for (Table table : tables) {
 			write(out, table);
 		}
-		
+
 	}
 
+    // quoted when CSVFormat would with QuoteMode.MINIMAL: if it's empty and
+    // first in the record, starts with something else than a letter or a
+    // digit and is first, starts with a character up to '#', contains a line
+    // break, a quote or the delimiter, or ends with a character up to ' '
+    private void putField(StringBuilder value, boolean first) {
+        int n = value.length();
+        boolean quote;
+        if (n == 0) {
+            quote = first;
+        }
+        else {
+            char c = value.charAt(0);
+            quote = (first && !(c >= '0' && c <= '9' || c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z'))
+                    || c <= '#'
+                    || value.charAt(n - 1) <= ' ';
+            for (int i = 0; i < n && !quote; i++) {
+                c = value.charAt(i);
+                quote = c == '\n' || c == '\r' || c == QUOTE || c == this.delimiter;
+            }
+        }
+
+        if (!quote) {
+            ensure(n);
+            value.getChars(0, n, this.line, this.length);
+            this.length += n;
+            return;
+        }
+        // quotes are doubled
+        ensure(2 * n + 2);
+        this.line[this.length++] = QUOTE;
+        for (int i = 0; i < n; i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                this.line[this.length++] = QUOTE;
+            }
+            this.line[this.length++] = c;
+        }
+        this.line[this.length++] = QUOTE;
+    }
+
+    private void put(char c) {
+        ensure(1);
+        this.line[this.length++] = c;
+    }
+
+    private void ensure(int n) {
+        if (this.length + n > this.line.length) {
+            char[] grown = new char[Math.max(this.line.length * 2, this.length + n)];
+            System.arraycopy(this.line, 0, grown, 0, this.length);
+            this.line = grown;
+        }
+    }
+
 }
@@ -1,57 +1,143 @@
 package technology.tabula.writers;
 
 import java.io.IOException;
-import java.lang.reflect.Modifier;
+import java.nio.CharBuffer;
 import java.util.List;
 
-import technology.tabula.Cell;
+import technology.tabula.Rectangle;
 import technology.tabula.RectangularTextContainer;
 import technology.tabula.Table;
-import technology.tabula.TextChunk;
-import technology.tabula.json.TableSerializer;
-import technology.tabula.json.TextChunkSerializer;
 
-import com.google.gson.ExclusionStrategy;
-import com.google.gson.FieldAttributes;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 
+/**
+ * Writes tables as JSON, streamed row by row to the output instead of
+ * building the tree of every table and a String of it first: an object per
+ * table with its extraction_method, its bounds and its data, an array of
+ * rows of cells, each with its bounds and its text.
+ *
+ * With lineDelimited, every table is written on a line of its own
+ * (newline-delimited JSON) and a list of tables isn't wrapped in an array.
+ */
 public class JSONWriter implements Writer {
- 
-    class TableSerializerExclusionStrategy implements ExclusionStrategy {
 
-        @Override
-        public boolean shouldSkipClass(Class<?> arg0) {
-            return false;
-        }
+    private final boolean lineDelimited;
 
-        @Override
-        public boolean shouldSkipField(FieldAttributes fa) {
-            return !fa.hasModifier(Modifier.PUBLIC);
-        }
+    public JSONWriter() {
+        this(false);
+    }
+
+    /**
+     * @param lineDelimited write one table per line, newline-delimited JSON
+     */
+    public JSONWriter(boolean lineDelimited) {
+        this.lineDelimited = lineDelimited;
     }
 
-    
-    final Gson gson;
-    
-    public JSONWriter() {
-        gson = new GsonBuilder()
-           .addSerializationExclusionStrategy(new TableSerializerExclusionStrategy())
-           .registerTypeAdapter(Table.class, new TableSerializer())
-           .registerTypeAdapter(RectangularTextContainer.class, new TextChunkSerializer())
-           .registerTypeAdapter(Cell.class, new TextChunkSerializer())
-           .registerTypeAdapter(TextChunk.class, new TextChunkSerializer())
-           .create();
-    }
-    
     @Override
     public void write(Appendable out, Table table) throws IOException {
-    	
-    	out.append(gson.toJson(table, Table.class));
+        JsonWriter writer = jsonWriter(out);
+        writeTable(writer, table);
+        if (this.lineDelimited) {
+            out.append('\n');
+        }
     }
-    
+
     public void write(Appendable out, List<Table> tables) throws IOException {
-    	
-    	out.append(gson.toJson(tables.toArray(), Table[].class));
+        if (this.lineDelimited) {
+            for (Table table: tables) {
+                write(out, table);
+            }
+            return;
+        }
+        JsonWriter writer = jsonWriter(out);
+        writer.beginArray();
+        for (Table table: tables) {
+            writeTable(writer, table);
+        }
+        writer.endArray();
+    }
+
+    // compact and HTML-safe, as Gson writes by default, and lenient so that
+    // NaN and Infinity are written as such
+    private static JsonWriter jsonWriter(Appendable out) {
+        JsonWriter rv = new JsonWriter(out instanceof java.io.Writer ? (java.io.Writer) out : new AppendableWriter(out));
+        rv.setHtmlSafe(true);
+        rv.setLenient(true);
+        return rv;
+    }
+
+    /**
+     * Writes table as an object, the layout TableSerializer uses too
+     */
+    public static void writeTable(JsonWriter writer, Table table) throws IOException {
+        writer.beginObject();
+        writer.name("extraction_method").value(table.getExtractionAlgorithm().toString());
+        writeBounds(writer, table);
+        writer.name("data").beginArray();
+        for (List<RectangularTextContainer> row: table.getRows()) {
+            writer.beginArray();
+            for (RectangularTextContainer textChunk: row) {
+                writeTextChunk(writer, textChunk);
+            }
+            writer.endArray();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    /**
+     * Writes a cell of a table as an object, the layout TextChunkSerializer uses too
+     */
+    public static void writeTextChunk(JsonWriter writer, RectangularTextContainer textChunk) throws IOException {
+        writer.beginObject();
+        writeBounds(writer, textChunk);
+        writer.name("text").value(textChunk.getText());
+        writer.endObject();
+    }
+
+    private static void writeBounds(JsonWriter writer, Rectangle r) throws IOException {
+        // boxed, so floats are written as floats and doubles as doubles,
+        // like JsonObject.addProperty does
+        writeNumber(writer.name("top"), r.getTop());
+        writeNumber(writer.name("left"), r.getLeft());
+        writeNumber(writer.name("width"), r.getWidth());
+        writeNumber(writer.name("height"), r.getHeight());
+    }
+
+    private static void writeNumber(JsonWriter writer, Number value) throws IOException {
+        writer.value(value);
+    }
+
+    // JsonWriter needs a java.io.Writer; it's never closed, so out isn't either
+    private static class AppendableWriter extends java.io.Writer {
+        private final Appendable out;
+
+        AppendableWriter(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            this.out.append((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            this.out.append(CharBuffer.wrap(cbuf, off, len));
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            this.out.append(str, off, off + len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
     }
 }
@@ -0,0 +1,96 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestBatchScheduler {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file(String name, int size) throws IOException {
+        File rv = folder.newFile(name);
+        FileOutputStream out = new FileOutputStream(rv);
+        out.write(new byte[size]);
+        out.close();
+        return rv;
+    }
+
+    @Test
+    public void testStaysWithinWorkersAndMemory() throws Exception {
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < 3; i++) {
+            files.add(file("huge" + i + ".pdf", 1000));
+        }
+        for (int i = 0; i < 20; i++) {
+            files.add(file("small" + i + ".pdf", 10));
+        }
+        final long budget = 1000 * BatchScheduler.MEMORY_PER_BYTE + 100;
+
+        final AtomicInteger running = new AtomicInteger(), maxRunning = new AtomicInteger();
+        final AtomicLong memory = new AtomicLong(), maxMemory = new AtomicLong();
+        final List<String> done = Collections.synchronizedList(new ArrayList<String>());
+        Map<File, Exception> failures = new BatchScheduler(4, budget).run(files, new BatchScheduler.Task() {
+            @Override
+            public void run(File file) throws Exception {
+                long m = file.length() * BatchScheduler.MEMORY_PER_BYTE;
+                synchronized (this) {
+                    maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+                    maxMemory.set(Math.max(maxMemory.get(), memory.addAndGet(m)));
+                }
+                Thread.sleep(file.length() > 100 ? 100 : 5);
+                synchronized (this) {
+                    running.decrementAndGet();
+                    memory.addAndGet(-m);
+                }
+                done.add(file.getName());
+            }
+        });
+
+        assertTrue(failures.isEmpty());
+        assertEquals(files.size(), done.size());
+        assertTrue(maxRunning.get() <= 4);
+        assertTrue(maxMemory.get() <= budget);
+        // the small files didn't wait for the huge ones, that run one at a time
+        assertTrue(done.indexOf("small19.pdf") < done.indexOf("huge2.pdf"));
+    }
+
+    @Test
+    public void testReportsFailuresInOrder() throws Exception {
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < 6; i++) {
+            files.add(file(i + ".pdf", 10));
+        }
+        Map<File, Exception> failures = new BatchScheduler(3, Long.MAX_VALUE).run(files, new BatchScheduler.Task() {
+            @Override
+            public void run(File file) throws Exception {
+                if (file.getName().equals("1.pdf")) {
+                    throw new IOException("broken");
+                }
+                if (file.getName().equals("4.pdf")) {
+                    throw new OutOfMemoryError();
+                }
+            }
+        });
+
+        assertEquals(2, failures.size());
+        List<File> failed = new ArrayList<File>(failures.keySet());
+        assertEquals(files.get(1), failed.get(0));
+        assertEquals("broken", failures.get(files.get(1)).getMessage());
+        assertEquals(files.get(4), failed.get(1));
+    }
+
+}
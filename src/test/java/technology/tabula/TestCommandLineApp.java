@@ -2,16 +2,31 @@ package technology.tabula;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.GnuParser;
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class TestCommandLineApp {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private String csvFromCommandLineArgs(String[] args) throws ParseException {
 		CommandLineParser parser = new GnuParser();
 		CommandLine cmd = parser.parse(CommandLineApp.buildOptions(), args);
@@ -81,4 +96,91 @@ public class TestCommandLineApp {
 		}));
 	}
 
+	@Test
+	public void testBatchWritesOneOutputPerFile() throws ParseException, IOException {
+		String expectedCsv = UtilsForTesting.loadCsv("src/test/resources/technology/tabula/csv/spreadsheet_no_bounding_frame.csv");
+		File first = folder.newFile("first.pdf"), second = folder.newFile("second.pdf");
+		copy(new File("src/test/resources/technology/tabula/spreadsheet_no_bounding_frame.pdf"), first);
+		copy(new File("src/test/resources/technology/tabula/spreadsheet_no_bounding_frame.pdf"), second);
+		File outdir = new File(folder.getRoot(), "out");
+
+		String output = this.csvFromCommandLineArgs(new String[] {
+				folder.getRoot().getPath(),
+				"-p", "1", "-a",
+				"150.56,58.9,654.7,536.12", "-f",
+				"CSV", "--outdir", outdir.getPath(), "--workers", "2"
+		});
+
+		assertEquals("", output);
+		assertEquals(expectedCsv, UtilsForTesting.loadCsv(new File(outdir, "first.csv").getPath()));
+		assertEquals(expectedCsv, UtilsForTesting.loadCsv(new File(outdir, "second.csv").getPath()));
+	}
+
+	@Test
+	public void testBatchKeepsDirectoriesOfPDFsWithTheSameName() throws ParseException, IOException {
+		String expectedCsv = UtilsForTesting.loadCsv("src/test/resources/technology/tabula/csv/spreadsheet_no_bounding_frame.csv");
+		File input = folder.newFolder("in");
+		File first = new File(input, "a/report.pdf"), second = new File(input, "b/report.pdf");
+		first.getParentFile().mkdirs();
+		second.getParentFile().mkdirs();
+		copy(new File("src/test/resources/technology/tabula/spreadsheet_no_bounding_frame.pdf"), first);
+		copy(new File("src/test/resources/technology/tabula/spreadsheet_no_bounding_frame.pdf"), second);
+		File outdir = new File(folder.getRoot(), "out");
+
+		this.csvFromCommandLineArgs(new String[] {
+				input.getPath(),
+				"-p", "1", "-a",
+				"150.56,58.9,654.7,536.12", "-f",
+				"CSV", "--outdir", outdir.getPath(), "--workers", "2"
+		});
+
+		assertEquals(expectedCsv, UtilsForTesting.loadCsv(new File(outdir, "a/report.csv").getPath()));
+		assertEquals(expectedCsv, UtilsForTesting.loadCsv(new File(outdir, "b/report.csv").getPath()));
+		assertFalse(new File(outdir, "report.csv").exists());
+	}
+
+	@Test
+	public void testBatchTagsCombinedOutput() throws ParseException, IOException {
+		String path = "src/test/resources/technology/tabula/spreadsheet_no_bounding_frame.pdf";
+		String single = this.csvFromCommandLineArgs(new String[] {
+				path, "-p", "1", "-a", "150.56,58.9,654.7,536.12", "-f", "CSV"
+		});
+		File list = folder.newFile("list");
+		FileWriter writer = new FileWriter(list);
+		writer.write(path + "\n");
+		writer.close();
+
+		String combined = this.csvFromCommandLineArgs(new String[] {
+				"@" + list.getPath(), "-p", "1", "-a", "150.56,58.9,654.7,536.12", "-f", "CSV"
+		});
+
+		List<CSVRecord> singleRecords = CSVParser.parse(single, CSVFormat.EXCEL).getRecords();
+		List<CSVRecord> combinedRecords = CSVParser.parse(combined, CSVFormat.EXCEL).getRecords();
+		assertEquals(singleRecords.size(), combinedRecords.size());
+		for (int i = 0; i < singleRecords.size(); i++) {
+			CSVRecord expected = singleRecords.get(i), actual = combinedRecords.get(i);
+			assertEquals(expected.size() + 2, actual.size());
+			assertEquals(path, actual.get(0));
+			assertEquals("1", actual.get(1));
+			for (int j = 0; j < expected.size(); j++) {
+				assertEquals(expected.get(j), actual.get(j + 2));
+			}
+		}
+	}
+
+	private static void copy(File from, File to) throws IOException {
+		InputStream in = new FileInputStream(from);
+		OutputStream out = new FileOutputStream(to);
+		try {
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				out.write(buffer, 0, n);
+			}
+		} finally {
+			in.close();
+			out.close();
+		}
+	}
+
 }
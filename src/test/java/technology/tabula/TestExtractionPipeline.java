@@ -0,0 +1,75 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.Test;
+
+import technology.tabula.extractors.BasicExtractionAlgorithm;
+
+public class TestExtractionPipeline {
+
+    private static final File US_017 = new File("src/test/resources/technology/tabula/us-017.pdf");
+    private static final File EU_002 = new File("src/test/resources/technology/tabula/eu-002.pdf");
+
+    private static List<String[][]> extractSequentially(File file) throws IOException {
+        List<String[][]> rv = new ArrayList<String[][]>();
+        PDDocument document = PDDocument.load(file);
+        try {
+            PageIterator pages = new ObjectExtractor(document).extract();
+            while (pages.hasNext()) {
+                for (Table table: new BasicExtractionAlgorithm().extract(pages.next())) {
+                    rv.add(UtilsForTesting.tableToArrayOfRows(table));
+                }
+            }
+        } finally {
+            document.close();
+        }
+        return rv;
+    }
+
+    @Test
+    public void testMatchesSequentialExtraction() throws Exception {
+        File missing = new File("src/test/resources/technology/tabula/does-not-exist.pdf");
+        final Map<File, List<String[][]>> tables = new HashMap<File, List<String[][]>>();
+        final Map<File, Integer> lastPage = new HashMap<File, Integer>();
+
+        ExtractionPipeline pipeline = new ExtractionPipeline(new BasicExtractionAlgorithm(), null, 2, 2, 1);
+        Map<File, Exception> failures = pipeline.run(Arrays.asList(US_017, missing, EU_002),
+                new ExtractionPipeline.Sink() {
+                    @Override
+                    public void write(File file, Page page, List<? extends Table> pageTables) {
+                        // pages of a document come in order
+                        Integer last = lastPage.get(file);
+                        assertTrue(last == null || last < page.getPageNumber());
+                        lastPage.put(file, page.getPageNumber());
+
+                        if (!tables.containsKey(file)) {
+                            tables.put(file, new ArrayList<String[][]>());
+                        }
+                        for (Table table: pageTables) {
+                            tables.get(file).add(UtilsForTesting.tableToArrayOfRows(table));
+                        }
+                    }
+                });
+
+        assertEquals(1, failures.size());
+        assertTrue(failures.containsKey(missing));
+        for (File file: Arrays.asList(US_017, EU_002)) {
+            List<String[][]> expected = extractSequentially(file);
+            assertEquals(expected.size(), tables.get(file).size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), tables.get(file).get(i));
+            }
+        }
+    }
+
+}
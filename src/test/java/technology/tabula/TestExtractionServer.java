@@ -0,0 +1,76 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestExtractionServer {
+
+    private static final String JOB = "[\"src/test/resources/technology/tabula/spreadsheet_no_bounding_frame.pdf\", "
+            + "\"-p\", \"1\", \"-a\", \"150.56,58.9,654.7,536.12\", \"-f\", \"CSV\"]";
+
+    // output of every job, followed by its status line
+    private static List<String> responses(byte[] bytes) throws IOException {
+        List<String> rv = new ArrayList<String>();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        String line;
+        while ((line = readLine(in)) != null) {
+            if (line.startsWith("DATA ")) {
+                byte[] chunk = new byte[Integer.parseInt(line.substring(5))];
+                in.readFully(chunk);
+                output.write(chunk);
+            }
+            else {
+                rv.add(output.toString("UTF-8"));
+                rv.add(line);
+                output.reset();
+            }
+        }
+        return rv;
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1) {
+                return null;
+            }
+            sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testServesJobsFromAStream() throws IOException {
+        String expectedCsv = UtilsForTesting.loadCsv("src/test/resources/technology/tabula/csv/spreadsheet_no_bounding_frame.csv");
+        String jobs = JOB + "\n\n[\"does-not-exist.pdf\"]\nnot a job\n" + JOB + "\n";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExtractionServer server = new ExtractionServer();
+        try {
+            server.serve(new ByteArrayInputStream(jobs.getBytes("UTF-8")), out);
+        } finally {
+            server.close();
+        }
+
+        List<String> responses = responses(out.toByteArray());
+        assertEquals(8, responses.size());
+        assertEquals(expectedCsv, responses.get(0));
+        assertEquals("END", responses.get(1));
+        assertEquals("", responses.get(2));
+        assertEquals("ERROR File does not exist", responses.get(3));
+        assertTrue(responses.get(5).startsWith("ERROR "));
+        assertEquals(expectedCsv, responses.get(6));
+        assertEquals("END", responses.get(7));
+    }
+
+}
@@ -0,0 +1,48 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.Test;
+
+import technology.tabula.detectors.NurminenDetectionAlgorithm;
+
+public class TestNurminenDetectionAlgorithm {
+
+    private static final String PDF_PATH = "src/test/resources/technology/tabula/icdar2013-dataset/competition-dataset-eu/eu-001.pdf";
+
+    @Test
+    public void testDetectDoesNotModifyPage() throws IOException {
+        PDDocument document = PDDocument.load(PDF_PATH);
+        ObjectExtractor oe = new ObjectExtractor(document);
+        Page page = oe.extract(1);
+
+        byte[] contents = page.getPDPage().getContents().getByteArray();
+        new NurminenDetectionAlgorithm().detect(page);
+        assertArrayEquals(contents, page.getPDPage().getContents().getByteArray());
+
+        oe.close();
+    }
+
+    @Test
+    public void testDetectInParallel() throws IOException {
+        PDDocument document = PDDocument.load(PDF_PATH);
+        ObjectExtractor oe = new ObjectExtractor(document);
+        Page page = oe.extract(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Rectangle> expected = new NurminenDetectionAlgorithm().detect(page);
+        List<Rectangle> detected = new NurminenDetectionAlgorithm(NurminenDetectionAlgorithm.DEFAULT_DPI, executor).detect(page);
+        executor.shutdown();
+
+        assertEquals(expected, detected);
+
+        oe.close();
+    }
+
+}
@@ -7,9 +7,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.junit.Test;
 
+import technology.tabula.extractors.BasicExtractionAlgorithm;
+
 public class TestObjectExtractor {
 
     @Test(expected=IOException.class)
@@ -124,4 +131,62 @@ public class TestObjectExtractor {
         assertFalse(pi.hasNext());
     }
     
+    @Test
+    public void testColumnarTextMatchesTextElements() throws IOException {
+        PDDocument pdf_document = PDDocument.load("src/test/resources/technology/tabula/us-017.pdf");
+        ObjectExtractor oe = new ObjectExtractor(pdf_document);
+        Page expected = oe.extract(2);
+        oe.setColumnarText(true);
+        Page page = oe.extract(2);
+        
+        assertTrue(page.getText() instanceof TextElementStore);
+        assertEquals(expected.getText(), page.getText());
+        assertEquals(expected.getMinCharWidth(), page.getMinCharWidth(), 0);
+        assertEquals(expected.getMinCharHeight(), page.getMinCharHeight(), 0);
+        
+        Rectangle area = new Rectangle(150, 50, 300, 100);
+        assertEquals(expected.getText(area), page.getText(area));
+        
+        assertArrayEquals(UtilsForTesting.tableToArrayOfRows(new BasicExtractionAlgorithm().extract(expected).get(0)),
+                UtilsForTesting.tableToArrayOfRows(new BasicExtractionAlgorithm().extract(page).get(0)));
+        oe.close();
+    }
+    
+    @Test
+    public void testPagesAreFoundWhenPageCountsAreWrong() throws IOException {
+        // the first kid of the root holds 3 pages but says 2, and the root
+        // says 4 or 3: all 4 pages are there, from the start
+        for (int rootCount: new int[] { 4, 3 }) {
+            ObjectExtractor oe = new ObjectExtractor(documentWithWrongPageCounts(rootCount));
+            assertEquals(4, oe.getPageCount());
+            for (int pageNumber: new int[] { 3, 4, 1, 2 }) {
+                assertEquals(99 + pageNumber, oe.getPDPage(pageNumber).findMediaBox().getWidth(), 0);
+            }
+            assertEquals(4, oe.getPageCount());
+            oe.close();
+        }
+    }
+    
+    // 4 pages, 100 to 103 wide, the first 3 under a node with a /Count of 2
+    private static PDDocument documentWithWrongPageCounts(int rootCount) throws IOException {
+        PDDocument document = new PDDocument();
+        COSDictionary root = document.getDocumentCatalog().getPages().getDictionary();
+        COSDictionary node = new COSDictionary();
+        COSArray rootKids = new COSArray();
+        COSArray nodeKids = new COSArray();
+        node.setItem(COSName.TYPE, COSName.PAGES);
+        node.setItem(COSName.PARENT, root);
+        node.setItem(COSName.KIDS, nodeKids);
+        node.setInt(COSName.COUNT, 2);
+        rootKids.add(node);
+        for (int i = 0; i < 4; i++) {
+            PDPage page = new PDPage(new PDRectangle(100 + i, 100));
+            page.getCOSDictionary().setItem(COSName.PARENT, i < 3 ? node : root);
+            (i < 3 ? nodeKids : rootKids).add(page.getCOSDictionary());
+        }
+        root.setItem(COSName.KIDS, rootKids);
+        root.setInt(COSName.COUNT, rootCount);
+        return document;
+    }
+    
 }
@@ -0,0 +1,71 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestPage {
+
+    @Test
+    public void testAreaRulingsAreCroppedPageRulings() throws IOException {
+        Page page = UtilsForTesting.getPage("src/test/resources/technology/tabula/us-017.pdf", 2);
+        float[][] areas = {
+                { 100, 40, 400, 560 },
+                { 150, 50, 250, 300 },
+                { 200, 300, 700, 600 },
+                { 0, 0, (float) page.getHeight(), (float) page.getWidth() }
+        };
+
+        for (float[] a: areas) {
+            Rectangle area = new Rectangle(a[0], a[1], a[3] - a[1], a[2] - a[0]);
+            List<Ruling> expected = Ruling.cropRulingsToArea(page.getRulings(), area);
+            List<Ruling> rulings = page.getArea(area).getUnprocessedRulings();
+
+            // followed by the four sides of the area
+            assertEquals(expected.size() + 4, rulings.size());
+            assertEquals(expected, rulings.subList(0, expected.size()));
+        }
+    }
+
+    @Test
+    public void testAreaTextIsLimitedToTheArea() throws IOException {
+        Page page = UtilsForTesting.getPage("src/test/resources/technology/tabula/us-017.pdf", 2);
+        Rectangle area = new Rectangle(100, 40, 520, 300);
+        Page child = page.getArea(area);
+
+        assertEquals(page.getText(area), child.getText());
+        float minWidth = Float.MAX_VALUE, minHeight = Float.MAX_VALUE;
+        for (TextElement te: child.getText()) {
+            minWidth = Math.min(minWidth, te.width);
+            minHeight = Math.min(minHeight, te.height);
+        }
+        assertEquals(minWidth, child.getMinCharWidth(), 0);
+        assertEquals(minHeight, child.getMinCharHeight(), 0);
+
+        // queries that reach outside of the area only find text inside of it
+        Rectangle whole = new Rectangle(0, 0, (float) page.getWidth(), (float) page.getHeight());
+        assertEquals(child.getText(), child.getText(whole));
+        assertTrue(child.getText().size() < page.getText(whole).size());
+
+        Rectangle query = new Rectangle(80, 0, 300, 200);
+        List<TextElement> text = child.getText(query);
+        assertTrue(page.getText(area).containsAll(text));
+        assertTrue(page.getText(query).containsAll(text));
+        assertEquals(text, child.getArea(query).getText());
+    }
+
+    @Test
+    public void testAreaWithoutText() throws IOException {
+        Page page = UtilsForTesting.getPage("src/test/resources/technology/tabula/us-017.pdf", 2);
+        Page child = page.getArea(new Rectangle(0, 0, 1, 1));
+
+        assertTrue(child.getText().isEmpty());
+        assertFalse(child.hasText());
+        assertEquals(page.getMinCharWidth(), child.getMinCharWidth(), 0);
+        assertEquals(page.getMinCharHeight(), child.getMinCharHeight(), 0);
+    }
+
+}
@@ -0,0 +1,105 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import technology.tabula.extractors.BasicExtractionAlgorithm;
+import technology.tabula.extractors.SpreadsheetExtractionAlgorithm;
+
+public class TestPageCache {
+
+    private static final String PDF_PATH = "src/test/resources/technology/tabula/us-017.pdf";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Page extract(String path, int pageNumber, PageCache cache) throws IOException {
+        PDDocument document = PDDocument.load(path);
+        ObjectExtractor oe = new ObjectExtractor(document, null, true, false, cache);
+        return oe.extract(pageNumber);
+    }
+
+    @Test
+    public void testCachedPageMatchesExtractedPage() throws IOException {
+        PageCache cache = new PageCache(folder.newFolder(), Long.MAX_VALUE);
+
+        Page extracted = extract(PDF_PATH, 2, cache);
+        assertTrue(cache.size() > 0);
+        Page cached = extract(PDF_PATH, 2, cache);
+
+        assertEquals(extracted.getPageNumber(), cached.getPageNumber());
+        assertEquals(extracted.getWidth(), cached.getWidth(), 0);
+        assertEquals(extracted.getHeight(), cached.getHeight(), 0);
+        assertEquals(extracted.getMinCharWidth(), cached.getMinCharWidth(), 0);
+
+        List<TextElement> extractedText = extracted.getText();
+        List<TextElement> cachedText = cached.getText();
+        assertEquals(extractedText.size(), cachedText.size());
+        for (int i = 0; i < extractedText.size(); i++) {
+            TextElement e = extractedText.get(i), c = cachedText.get(i);
+            assertEquals(e.getText(), c.getText());
+            assertEquals(e.getX(), c.getX(), 0);
+            assertEquals(e.getY(), c.getY(), 0);
+            assertEquals(e.getWidth(), c.getWidth(), 0);
+            assertEquals(e.getHeight(), c.getHeight(), 0);
+            assertEquals(e.getFontSize(), c.getFontSize(), 0);
+            assertEquals(e.getWidthOfSpace(), c.getWidthOfSpace(), 0);
+        }
+        assertEquals(extracted.getRulings(), cached.getRulings());
+
+        Table expectedTable = new BasicExtractionAlgorithm().extract(extracted).get(0);
+        Table cachedTable = new BasicExtractionAlgorithm().extract(cached).get(0);
+        assertArrayEquals(UtilsForTesting.tableToArrayOfRows(expectedTable),
+                UtilsForTesting.tableToArrayOfRows(cachedTable));
+        assertEquals(new SpreadsheetExtractionAlgorithm().isTabular(extracted),
+                new SpreadsheetExtractionAlgorithm().isTabular(cached));
+    }
+
+    @Test
+    public void testDifferentSettingsDontShareEntries() throws IOException {
+        File directory = folder.newFolder();
+        PageCache cache = new PageCache(directory, Long.MAX_VALUE);
+
+        extract(PDF_PATH, 1, cache);
+        PDDocument document = PDDocument.load(PDF_PATH);
+        ObjectExtractor oe = new ObjectExtractor(document, null, false, false, cache);
+        Page withoutRulings = oe.extract(1);
+
+        assertTrue(withoutRulings.getRulings().isEmpty());
+        assertEquals(2, directory.listFiles().length);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws IOException {
+        Page page = extract(PDF_PATH, 1, null);
+
+        PageCache sizing = new PageCache(folder.newFolder(), Long.MAX_VALUE);
+        sizing.put("a", page);
+        long entrySize = sizing.size();
+
+        File directory = folder.newFolder();
+        PageCache cache = new PageCache(directory, entrySize * 2 + entrySize / 2);
+        cache.put("a", page);
+        cache.put("b", page);
+        assertNotNull(cache.get("a", page.getPDPage(), 1));
+        cache.put("c", page);
+
+        assertNull(cache.get("b", page.getPDPage(), 1));
+        assertNotNull(cache.get("a", page.getPDPage(), 1));
+        assertNotNull(cache.get("c", page.getPDPage(), 1));
+        assertEquals(2, directory.listFiles().length);
+
+        // entries survive across instances
+        PageCache reopened = new PageCache(directory, Long.MAX_VALUE);
+        assertNotNull(reopened.get("c", page.getPDPage(), 1));
+    }
+
+}
@@ -0,0 +1,108 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.junit.Test;
+
+public class TestPageScreener {
+
+    private static PDPage page(PDDocument document, String contents) throws IOException {
+        PDStream stream = new PDStream(document);
+        OutputStream out = stream.createOutputStream();
+        out.write(contents.getBytes("ISO-8859-1"));
+        out.close();
+        PDPage rv = new PDPage();
+        rv.setContents(stream);
+        document.addPage(rv);
+        return rv;
+    }
+
+    @Test
+    public void testRunningTextScoresLow() throws IOException {
+        StringBuilder contents = new StringBuilder("BT /F1 10 Tf 72 720 Td\n");
+        for (int i = 0; i < 40; i++) {
+            contents.append("[(The committee met four times during the year and rev) -20 (iewed the accounts.)] TJ 0 -12 Td\n");
+        }
+        contents.append("ET\n");
+        // a rule under the heading
+        contents.append("72 740 m 540 740 l S\n");
+
+        PDDocument document = new PDDocument();
+        try {
+            PageScreener.Statistics statistics = new PageScreener().statistics(page(document, contents.toString()));
+            assertEquals(40, statistics.getTextOperators());
+            assertEquals(40, statistics.getTextRuns());
+            assertEquals(1, statistics.getRulingSegments());
+            assertTrue(statistics.score() < PageScreener.DEFAULT_THRESHOLD);
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testTablesScoreHigh() throws IOException {
+        // rows of cells shown with gaps in a TJ, without rulings
+        StringBuilder unruled = new StringBuilder("BT /F1 10 Tf 72 720 Td\n");
+        // the same cells one by one, in a grid of rulings
+        StringBuilder ruled = new StringBuilder("BT /F1 10 Tf\n");
+        for (int row = 0; row < 10; row++) {
+            unruled.append("[(Region ").append(row).append(") -4000 (1,234.5) -3000 (12.5%) -3000 (n/a)] TJ 0 -12 Td\n");
+            for (int column = 0; column < 3; column++) {
+                ruled.append("1 0 0 1 ").append(72 + column * 150).append(' ').append(700 - row * 14)
+                     .append(" Tm (Cell ").append(row).append('.').append(column).append(") Tj\n");
+            }
+        }
+        unruled.append("ET\n");
+        ruled.append("ET\n");
+        for (int row = 0; row <= 10; row++) {
+            ruled.append("70 ").append(712 - row * 14).append(" m 520 ").append(712 - row * 14).append(" l S\n");
+        }
+        for (int column = 0; column <= 3; column++) {
+            ruled.append(70 + column * 150).append(" 572 450 140 re S\n");
+        }
+
+        PDDocument document = new PDDocument();
+        try {
+            PageScreener screener = new PageScreener();
+            PageScreener.Statistics statistics = screener.statistics(page(document, unruled.toString()));
+            assertEquals(10, statistics.getTextOperators());
+            assertEquals(40, statistics.getTextRuns());
+            assertTrue(statistics.score() >= PageScreener.DEFAULT_THRESHOLD);
+
+            statistics = screener.statistics(page(document, ruled.toString()));
+            assertEquals(11, statistics.getRulingSegments());
+            assertEquals(4, statistics.getRectangles());
+            assertTrue(statistics.score() >= PageScreener.DEFAULT_THRESHOLD);
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testPageWithoutTextScoresZero() throws IOException {
+        PDDocument document = new PDDocument();
+        try {
+            assertEquals(0f, new PageScreener().score(page(document, "0 0 100 100 re f 0 0 m 100 0 l S\n")), 0f);
+        } finally {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testScreensSpreadsheetPage() throws IOException {
+        PDDocument document = PDDocument.load("src/test/resources/technology/tabula/campaign_donors.pdf");
+        try {
+            ObjectExtractor oe = new ObjectExtractor(document);
+            assertTrue(new PageScreener().score(oe.getPDPage(1)) >= PageScreener.DEFAULT_THRESHOLD);
+        } finally {
+            document.close();
+        }
+    }
+
+}
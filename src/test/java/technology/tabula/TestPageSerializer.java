@@ -0,0 +1,155 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.awt.geom.Point2D;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.Test;
+
+import technology.tabula.detectors.NurminenDetectionAlgorithm;
+import technology.tabula.detectors.SpreadsheetDetectionAlgorithm;
+import technology.tabula.extractors.BasicExtractionAlgorithm;
+import technology.tabula.extractors.SpreadsheetExtractionAlgorithm;
+
+public class TestPageSerializer {
+
+    private static Page roundTrip(Page page) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PageSerializer.write(page, out);
+        return PageSerializer.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static void assertSameGeometry(Page expected, Page actual) {
+        assertEquals(expected.getTop(), actual.getTop(), 0);
+        assertEquals(expected.getLeft(), actual.getLeft(), 0);
+        assertEquals(expected.getWidth(), actual.getWidth(), 0);
+        assertEquals(expected.getHeight(), actual.getHeight(), 0);
+        assertEquals(expected.getRotation(), actual.getRotation());
+        assertEquals(expected.getPageNumber(), actual.getPageNumber());
+        assertEquals(expected.getMinCharWidth(), actual.getMinCharWidth(), 0);
+        assertEquals(expected.getMinCharHeight(), actual.getMinCharHeight(), 0);
+
+        List<TextElement> expectedText = expected.getText();
+        List<TextElement> actualText = actual.getText();
+        assertEquals(expectedText.size(), actualText.size());
+        for (int i = 0; i < expectedText.size(); i++) {
+            TextElement e = expectedText.get(i), a = actualText.get(i);
+            assertEquals(e.getText(), a.getText());
+            assertEquals(e.getX(), a.getX(), 0);
+            assertEquals(e.getY(), a.getY(), 0);
+            assertEquals(e.getWidth(), a.getWidth(), 0);
+            assertEquals(e.getHeight(), a.getHeight(), 0);
+            assertEquals(e.getFontSize(), a.getFontSize(), 0);
+            assertEquals(e.getWidthOfSpace(), a.getWidthOfSpace(), 0);
+            assertEquals(e.getDirection(), a.getDirection(), 0);
+            assertEquals(e.getFont().getBaseFont(), a.getFont().getBaseFont());
+        }
+        assertEquals(expected.getRulings(), actual.getRulings());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Page page = UtilsForTesting.getPage("src/test/resources/technology/tabula/us-017.pdf", 2);
+        Page read = roundTrip(page);
+
+        assertNull(read.getPDPage());
+        assertSameGeometry(page, read);
+
+        assertArrayEquals(UtilsForTesting.tableToArrayOfRows(new BasicExtractionAlgorithm().extract(page).get(0)),
+                UtilsForTesting.tableToArrayOfRows(new BasicExtractionAlgorithm().extract(read).get(0)));
+
+        List<? extends Table> expected = new SpreadsheetExtractionAlgorithm().extract(page);
+        List<? extends Table> actual = new SpreadsheetExtractionAlgorithm().extract(read);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(UtilsForTesting.tableToArrayOfRows(expected.get(i)),
+                    UtilsForTesting.tableToArrayOfRows(actual.get(i)));
+        }
+
+        assertEquals(new SpreadsheetDetectionAlgorithm().detect(page), new SpreadsheetDetectionAlgorithm().detect(read));
+        assertFalse(new NurminenDetectionAlgorithm().detect(read).isEmpty());
+    }
+
+    @Test
+    public void testAreaRoundTrip() throws IOException {
+        Page area = UtilsForTesting.getAreaFromPage("src/test/resources/technology/tabula/us-017.pdf", 2,
+                100, 40, 400, 560);
+        Page read = roundTrip(area);
+
+        assertSameGeometry(area, read);
+
+        Rectangle r = new Rectangle(150, 50, 300, 100);
+        List<TextElement> expectedText = area.getText(r), actualText = read.getText(r);
+        assertEquals(expectedText.size(), actualText.size());
+        for (int i = 0; i < expectedText.size(); i++) {
+            assertEquals(expectedText.get(i).getText(), actualText.get(i).getText());
+        }
+    }
+
+    @Test
+    public void testReadSeveralPagesFromOneStream() throws IOException {
+        Page first = UtilsForTesting.getPage("src/test/resources/technology/tabula/us-017.pdf", 1);
+        Page second = UtilsForTesting.getPage("src/test/resources/technology/tabula/us-017.pdf", 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PageSerializer.write(first, out);
+        PageSerializer.write(second, out);
+
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertSameGeometry(first, PageSerializer.read(in));
+        assertSameGeometry(second, PageSerializer.read(in));
+        assertEquals(-1, in.read());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherData() throws IOException {
+        PageSerializer.read(new ByteArrayInputStream("not a page, just some text".getBytes()));
+    }
+
+    @Test
+    public void testCorruptDataIsAnIOException() throws IOException {
+        List<TextElement> characters = new ArrayList<TextElement>();
+        RectangleSpatialIndex<TextElement> index = new RectangleSpatialIndex<TextElement>();
+        for (int i = 0; i < 3; i++) {
+            TextElement te = new TextElement(100, 72 + i * 5, 5, 10, PDType1Font.HELVETICA, 10 + i % 2, "ab", 2.8f);
+            characters.add(te);
+            index.add(te);
+        }
+        List<Ruling> rulings = new ArrayList<Ruling>();
+        rulings.add(new Ruling(new Point2D.Float(72, 95), new Point2D.Float(300, 95)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PageSerializer.write(new Page(0, 0, 612, 792, 0, 1, null, characters, rulings, 5, 10, index), out);
+        byte[] written = out.toByteArray();
+
+        // every count and index replaced by wrong ones
+        int[] values = { -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 1 << 24, 7 };
+        for (int at = 8; at + 4 <= written.length; at++) {
+            for (int value: values) {
+                byte[] bytes = written.clone();
+                ByteBuffer.wrap(bytes).putInt(at, value);
+                try {
+                    PageSerializer.read(new ByteArrayInputStream(bytes));
+                } catch (IOException e) {
+                    // what PageCache drops
+                }
+            }
+        }
+        // and cut short
+        for (int length = 0; length < written.length; length++) {
+            try {
+                PageSerializer.read(new ByteArrayInputStream(written, 0, length));
+                fail("read " + length + " bytes of " + written.length + " as a page");
+            } catch (IOException e) {
+            }
+        }
+    }
+
+}
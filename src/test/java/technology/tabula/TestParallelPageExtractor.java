@@ -0,0 +1,63 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.Test;
+
+public class TestParallelPageExtractor {
+
+    private static final String PDF_PATH = "src/test/resources/technology/tabula/us-017.pdf";
+
+    @Test
+    public void testExtractsSamePagesAsObjectExtractor() throws IOException {
+        PDDocument document = PDDocument.load(PDF_PATH);
+        ObjectExtractor oe = new ObjectExtractor(document);
+        List<Page> expected = new ArrayList<Page>();
+        PageIterator pi = oe.extract();
+        while (pi.hasNext()) {
+            expected.add(pi.next());
+        }
+        oe.close();
+
+        ParallelPageExtractor ppe = new ParallelPageExtractor(new File(PDF_PATH), null, 3);
+        List<Page> pages = ppe.extract();
+        ppe.close();
+
+        assertEquals(expected.size(), pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            assertEquals(expected.get(i).getPageNumber(), pages.get(i).getPageNumber());
+            assertEquals(expected.get(i).getText().size(), pages.get(i).getText().size());
+            assertEquals(expected.get(i).getRulings().size(), pages.get(i).getRulings().size());
+        }
+    }
+
+    @Test
+    public void testKeepsRequestedOrder() throws IOException {
+        ParallelPageExtractor ppe = new ParallelPageExtractor(new File(PDF_PATH), null, 2);
+        List<Page> pages = ppe.extract(Arrays.asList(4, 1, 3));
+        ppe.close();
+
+        assertEquals(3, pages.size());
+        assertEquals(4, pages.get(0).getPageNumber());
+        assertEquals(1, pages.get(1).getPageNumber());
+        assertEquals(3, pages.get(2).getPageNumber());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testExtractWrongPageNumber() throws IOException {
+        ParallelPageExtractor ppe = new ParallelPageExtractor(new File(PDF_PATH), null, 2);
+        try {
+            ppe.extract(Arrays.asList(1, 5));
+        } finally {
+            ppe.close();
+        }
+    }
+
+}
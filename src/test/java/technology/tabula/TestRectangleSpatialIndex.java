@@ -2,6 +2,11 @@ package technology.tabula;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Test;
 
 public class TestRectangleSpatialIndex {
@@ -18,4 +23,59 @@ public class TestRectangleSpatialIndex {
 
 	}
 
+	@Test
+	public void testContainsAndIntersects() {
+		RectangleSpatialIndex<Rectangle> si = new RectangleSpatialIndex<Rectangle>();
+		Rectangle inside = new Rectangle(10, 10, 5, 5);
+		Rectangle across = new Rectangle(18, 18, 5, 5);
+		Rectangle outside = new Rectangle(50, 50, 5, 5);
+		si.add(inside);
+		si.add(across);
+		si.add(outside);
+
+		Rectangle area = new Rectangle(0, 0, 20, 20);
+		assertEquals(1, si.contains(area).size());
+		assertSame(inside, si.contains(area).get(0));
+		assertEquals(2, si.intersects(area).size());
+		assertEquals(new Rectangle(10, 10, 45, 45), si.getBounds());
+	}
+
+	@Test
+	public void testAddAfterQuery() {
+		RectangleSpatialIndex<Rectangle> si = new RectangleSpatialIndex<Rectangle>();
+		Rectangle area = new Rectangle(0, 0, 100, 100);
+		si.add(new Rectangle(1, 1, 1, 1));
+		assertEquals(1, si.contains(area).size());
+		si.add(new Rectangle(2, 2, 1, 1));
+		assertEquals(2, si.contains(area).size());
+	}
+
+	@Test
+	public void testMatchesLinearScan() {
+		Random random = new Random(1);
+		RectangleSpatialIndex<Rectangle> si = new RectangleSpatialIndex<Rectangle>();
+		List<Rectangle> rectangles = new ArrayList<Rectangle>();
+		for (int i = 0; i < 5000; i++) {
+			Rectangle r = new Rectangle(random.nextFloat() * 800, random.nextFloat() * 600, random.nextFloat() * 10, random.nextFloat() * 10);
+			rectangles.add(r);
+			si.add(r);
+		}
+
+		for (int i = 0; i < 100; i++) {
+			Rectangle area = new Rectangle(random.nextFloat() * 800, random.nextFloat() * 600, random.nextFloat() * 200, random.nextFloat() * 200);
+			List<Rectangle> contained = new ArrayList<Rectangle>();
+			List<Rectangle> intersecting = new ArrayList<Rectangle>();
+			for (Rectangle r: rectangles) {
+				if (area.contains(r)) {
+					contained.add(r);
+				}
+				if (area.intersects(r)) {
+					intersecting.add(r);
+				}
+			}
+			assertEquals(new HashSet<Rectangle>(contained), new HashSet<Rectangle>(si.contains(area)));
+			assertEquals(new HashSet<Rectangle>(intersecting), new HashSet<Rectangle>(si.intersects(area)));
+		}
+	}
+
 }
@@ -4,6 +4,7 @@ import static org.junit.Assert.*;
 
 import java.awt.geom.Point2D;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -11,6 +12,7 @@ import java.util.Map;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.junit.Test;
 
 import technology.tabula.Cell;
@@ -280,6 +282,25 @@ public class TestSpreadsheetExtractor {
         assertFalse(cells.get(0).intersects(cells.get(1)));
     }
     
+    @Test
+    public void testFindCellsInLargeGrid() {
+        List<Ruling> horizontals = new ArrayList<Ruling>();
+        List<Ruling> verticals = new ArrayList<Ruling>();
+        for (int i = 0; i <= 60; i++) {
+            horizontals.add(new Ruling(new Point2D.Float(0, i * 12.5f), new Point2D.Float(800, i * 12.5f)));
+        }
+        for (int i = 0; i <= 40; i++) {
+            verticals.add(new Ruling(new Point2D.Float(i * 20, 0), new Point2D.Float(i * 20, 750)));
+        }
+
+        List<Cell> cells = SpreadsheetExtractionAlgorithm.findCells(horizontals, verticals);
+        assertEquals(60 * 40, cells.size());
+        // cells come out row by row, left to right
+        assertEquals(new Cell(0, 0, 20, 12.5f), cells.get(0));
+        assertEquals(new Cell(0, 20, 20, 12.5f), cells.get(1));
+        assertEquals(new Cell(737.5f, 780, 20, 12.5f), cells.get(cells.size() - 1));
+    }
+
     @Test
     public void testFindSpreadsheetsFromCells() {
         SpreadsheetExtractionAlgorithm se = new SpreadsheetExtractionAlgorithm();
@@ -547,4 +568,36 @@ public class TestSpreadsheetExtractor {
 
     }
 
+    // ten lines of running text
+    private static Page proseParagraph(List<Ruling> rulings) {
+        List<TextElement> characters = new ArrayList<TextElement>();
+        RectangleSpatialIndex<TextElement> index = new RectangleSpatialIndex<TextElement>();
+        for (int line = 0; line < 10; line++) {
+            for (int i = 0; i < 60; i++) {
+                TextElement te = new TextElement(100 + line * 12, 72 + i * 5, 5, 10,
+                        PDType1Font.HELVETICA, 10, i % 6 == 5 ? " " : "a", 2.8f);
+                characters.add(te);
+                index.add(te);
+            }
+        }
+        return new Page(0, 0, 612, 792, 0, 1, null, characters, rulings, 5, 10, index);
+    }
+
+    @Test
+    public void testRunningTextIsNotTabular() {
+        assertFalse(new SpreadsheetExtractionAlgorithm().isTabular(proseParagraph(new ArrayList<Ruling>())));
+    }
+
+    @Test
+    public void testRunningTextCrossedByRulingsIsNotTabular() {
+        // a line crossing four others, which with the edges of the region
+        // make a row of three cells, against ten lines of text
+        List<Ruling> rulings = new ArrayList<Ruling>();
+        rulings.add(new Ruling(new Point2D.Float(72, 150), new Point2D.Float(372, 150)));
+        for (int i = 0; i < 4; i++) {
+            rulings.add(new Ruling(new Point2D.Float(72 + i * 100, 100), new Point2D.Float(72 + i * 100, 200)));
+        }
+        assertFalse(new SpreadsheetExtractionAlgorithm().isTabular(proseParagraph(rulings)));
+    }
+
 }
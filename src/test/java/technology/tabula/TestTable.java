@@ -0,0 +1,77 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestTable {
+
+    @Test
+    public void testEmptyTableHasOneEmptyCell() {
+        Table table = new Table();
+        assertEquals(1, table.getRows().size());
+        assertEquals(1, table.getRows().get(0).size());
+        assertSame(TextChunk.EMPTY, table.getCell(0, 0));
+        assertTrue(table.getCells().isEmpty());
+    }
+
+    @Test
+    public void testRowsAndColumnsAreFilledWithEmptyCells() {
+        Table table = new Table();
+        Cell a = new Cell(0, 0, 10, 10), b = new Cell(10, 20, 10, 10);
+        table.add(a, 0, 0);
+        table.add(b, 1, 2);
+
+        List<List<RectangularTextContainer>> rows = table.getRows();
+        assertEquals(2, rows.size());
+        assertEquals(3, rows.get(0).size());
+        assertSame(a, rows.get(0).get(0));
+        assertSame(TextChunk.EMPTY, rows.get(0).get(2));
+        assertSame(b, rows.get(1).get(2));
+
+        List<List<RectangularTextContainer>> cols = table.getCols();
+        assertEquals(3, cols.size());
+        assertEquals(2, cols.get(2).size());
+        assertSame(b, cols.get(2).get(1));
+
+        // the rows are views of the table
+        Cell c = new Cell(20, 0, 10, 10);
+        table.add(c, 2, 0);
+        assertEquals(3, rows.size());
+        assertSame(c, rows.get(2).get(0));
+    }
+
+    @Test
+    public void testCellsOfVeryWideTables() {
+        Table table = new Table();
+        Cell a = new Cell(0, 0, 10, 10), b = new Cell(0, 100000, 10, 10), c = new Cell(10, 0, 10, 10);
+        table.add(b, 0, 5000);
+        table.add(a, 0, 1);
+        table.add(c, 1, 0);
+
+        assertEquals(5001, table.getRows().get(1).size());
+        assertSame(b, table.getCell(0, 5000));
+        assertSame(TextChunk.EMPTY, table.getCell(1, 5000));
+        // by row, then by column
+        List<RectangularTextContainer> cells = table.getCells();
+        assertEquals(3, cells.size());
+        assertSame(a, cells.get(0));
+        assertSame(b, cells.get(1));
+        assertSame(c, cells.get(2));
+    }
+
+    @Test
+    public void testAddingOnACellMergesThem() {
+        Table table = new Table();
+        Cell a = new Cell(0, 0, 10, 10), b = new Cell(0, 10, 10, 10);
+        table.add(a, 0, 0);
+        table.add(b, 0, 0);
+
+        assertSame(b, table.getCell(0, 0));
+        assertEquals(20, b.getWidth(), 0.01);
+        assertEquals(1, table.getCells().size());
+    }
+
+}
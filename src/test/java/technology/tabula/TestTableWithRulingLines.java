@@ -0,0 +1,70 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import technology.tabula.extractors.SpreadsheetExtractionAlgorithm;
+
+public class TestTableWithRulingLines {
+
+    private static final float[] XS = { 79.29652f, 97.40794f, 112.07735f, 146.94695f };
+    private static final float[] YS = { 54.882423f, 84.542694f, 192.43402f, 214.55019f };
+
+    private static Cell cell(int row, int col, int rowSpan, int colSpan) {
+        return new Cell(new Point2D.Float(XS[col], YS[row]), new Point2D.Float(XS[col + colSpan], YS[row + rowSpan]));
+    }
+
+    private static TableWithRulingLines table(List<Cell> cells) {
+        return new TableWithRulingLines(Utils.bounds(cells), null, cells,
+                new ArrayList<Ruling>(), new ArrayList<Ruling>());
+    }
+
+    @Test
+    public void testRowsStartAfterCellsSpanningIntoThem() {
+        List<Cell> cells = new ArrayList<Cell>();
+        cells.add(cell(0, 0, 2, 1));
+        cells.add(cell(0, 1, 1, 1));
+        cells.add(cell(0, 2, 1, 1));
+        cells.add(cell(1, 1, 1, 2));
+        cells.add(cell(2, 0, 1, 1));
+        cells.add(cell(2, 1, 1, 1));
+        cells.add(cell(2, 2, 1, 1));
+        TableWithRulingLines table = table(cells);
+
+        assertEquals(3, table.getRows().size());
+        assertEquals(3, table.getCols().size());
+        assertSame(cells.get(0), table.getCell(0, 0));
+        // the cell of the second row is in the second column, under the first row's
+        assertSame(TextChunk.EMPTY, table.getRows().get(1).get(0));
+        assertSame(cells.get(3), table.getCell(1, 1));
+        assertSame(cells.get(4), table.getCell(2, 0));
+        assertSame(cells.get(6), table.getCell(2, 2));
+    }
+
+    @Test
+    public void testGridOfCellsFound() {
+        List<Ruling> horizontals = new ArrayList<Ruling>(), verticals = new ArrayList<Ruling>();
+        for (int i = 0; i < 50; i++) {
+            horizontals.add(new Ruling(new Point2D.Float(10, 10 + i * 7.3f), new Point2D.Float(427, 10 + i * 7.3f)));
+        }
+        for (int j = 0; j < 11; j++) {
+            verticals.add(new Ruling(new Point2D.Float(10 + j * 41.7f, 10), new Point2D.Float(10 + j * 41.7f, 367.7f)));
+        }
+        List<Cell> cells = SpreadsheetExtractionAlgorithm.findCells(horizontals, verticals);
+        TableWithRulingLines table = table(cells);
+
+        assertEquals(49, table.getRows().size());
+        assertEquals(10, table.getCols().size());
+        for (Cell cell: cells) {
+            int row = Math.round((cell.getTop() - 10) / 7.3f);
+            int col = Math.round((cell.getLeft() - 10) / 41.7f);
+            assertSame(cell, table.getCell(row, col));
+        }
+    }
+
+}
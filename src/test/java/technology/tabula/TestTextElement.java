@@ -1,5 +1,6 @@
 package technology.tabula;
 
+import java.awt.geom.Point2D;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -183,8 +184,45 @@ public class TestTextElement {
 		Assert.assertEquals(2, words.size());
 		Assert.assertEquals(expectedWords, words);
 		
-	}	
+	}
 	
+	@Test
+	public void mergeWordsDoesNotModifyItsInput() {
+		
+		List<TextElement> elements = new ArrayList<TextElement>();
+		elements.add(new TextElement(0f, 0f, 10f, 20f, PDType1Font.HELVETICA, 1f, "A", 1f));
+		elements.add(new TextElement(0f, 10f, 10f, 20f, PDType1Font.HELVETICA, 1f, "B", 1f));
+		List<TextElement> expected = new ArrayList<TextElement>(elements);
+		
+		TextElement.mergeWords(elements);
+		
+		Assert.assertEquals(expected, elements);
+		
+	}
 	
+	@Test
+	public void mergeWordsSplitsAtVerticalRulings() {
+		
+		List<TextElement> elements = new ArrayList<TextElement>();
+		elements.add(new TextElement(0f, 0f, 10f, 20f, PDType1Font.HELVETICA, 1f, "A", 1f));
+		elements.add(new TextElement(0f, 10f, 10f, 20f, PDType1Font.HELVETICA, 1f, "B", 1f));
+		elements.add(new TextElement(0f, 20f, 10f, 20f, PDType1Font.HELVETICA, 1f, "C", 1f));
+		elements.add(new TextElement(0f, 30f, 10f, 20f, PDType1Font.HELVETICA, 1f, "D", 1f));
+		
+		List<Ruling> verticalRulings = new ArrayList<Ruling>();
+		// doesn't reach the text
+		verticalRulings.add(new Ruling(new Point2D.Float(5f, 30f), new Point2D.Float(5f, 50f)));
+		verticalRulings.add(new Ruling(new Point2D.Float(25f, -10f), new Point2D.Float(25f, 30f)));
+		for (int i = 0; i < 100; i++) {
+			verticalRulings.add(new Ruling(new Point2D.Float(100f + i, -10f), new Point2D.Float(100f + i, 30f)));
+		}
+		
+		List<TextChunk> words = TextElement.mergeWords(elements, verticalRulings);
+		
+		Assert.assertEquals(2, words.size());
+		Assert.assertEquals("ABC", words.get(0).getText());
+		Assert.assertEquals("D", words.get(1).getText());
+		
+	}
 
 }
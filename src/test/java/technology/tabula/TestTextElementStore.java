@@ -0,0 +1,79 @@
+package technology.tabula;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.Test;
+
+public class TestTextElementStore {
+
+    private static List<TextElement> randomTextElements(int n, long seed) {
+        Random random = new Random(seed);
+        List<TextElement> rv = new ArrayList<TextElement>();
+        for (int i = 0; i < n; i++) {
+            rv.add(new TextElement(random.nextInt(100) * 7.5f + random.nextInt(3), random.nextInt(80) * 6f,
+                    4 + random.nextInt(3), 8, random.nextBoolean() ? PDType1Font.HELVETICA : PDType1Font.TIMES_ROMAN,
+                    9, String.valueOf((char) ('a' + random.nextInt(26))), 2.5f));
+        }
+        return rv;
+    }
+
+    @Test
+    public void testAddGetRemoveSet() {
+        TextElementStore store = new TextElementStore();
+        TextElement a = new TextElement(5f, 15f, 10f, 20f, PDType1Font.HELVETICA, 1f, "A", 1f);
+        TextElement b = new TextElement(5f, 25f, 10f, 20f, PDType1Font.TIMES_ROMAN, 2f, "bc", 1.5f, 2f);
+        TextElement c = new TextElement(30f, 15f, 10f, 20f, PDType1Font.HELVETICA, 1f, "", 1f);
+        store.add(a);
+        store.add(b);
+        store.add(c);
+
+        assertEquals(3, store.size());
+        assertEquals(b, store.get(1));
+        assertSame(PDType1Font.TIMES_ROMAN, store.get(1).getFont());
+        assertEquals("bc", store.getText(1));
+        assertEquals(2f, store.get(1).getDirection(), 0);
+
+        assertEquals(a, store.remove(0));
+        assertEquals(2, store.size());
+        assertEquals(b, store.get(0));
+        assertEquals(c, store.get(1));
+
+        store.set(0, a);
+        assertEquals(a, store.get(0));
+        assertEquals(c, store.get(1));
+    }
+
+    @Test
+    public void testSortMatchesUtilsSort() {
+        List<TextElement> expected = randomTextElements(2000, 1);
+        TextElementStore store = new TextElementStore(expected);
+        List<TextElement> unsorted = new ArrayList<TextElement>(expected);
+
+        Utils.sort(expected);
+        int[] order = store.sort();
+
+        assertEquals(expected, store);
+        for (int i = 0; i < order.length; i++) {
+            assertEquals(unsorted.get(order[i]), store.get(i));
+        }
+    }
+
+    @Test
+    public void testSnapshotIsNotModified() {
+        TextElementStore store = new TextElementStore(randomTextElements(100, 2));
+        List<TextElement> expected = new ArrayList<TextElement>(store);
+        TextElementStore snapshot = store.snapshot();
+
+        store.remove(0);
+        store.add(new TextElement(5f, 15f, 10f, 20f, PDType1Font.HELVETICA, 1f, "A", 1f));
+        store.sort();
+
+        assertEquals(expected, snapshot);
+    }
+
+}
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.cli.ParseException;
 import org.junit.Before;
@@ -68,6 +69,67 @@ public class TestUtils {
         Utils.parsePagesOption("quuxor");
     }
 
+    @Test
+    public void testRoundHalfUp() {
+        assertEquals(1.01f, Utils.round(1.005, 2), 0);
+        assertEquals(2.68f, Utils.round(2.675, 2), 0);
+        assertEquals(-2.68f, Utils.round(-2.675, 2), 0);
+        assertEquals(0.13f, Utils.round(0.125, 2), 0);
+        assertEquals(-0.13f, Utils.round(-0.125, 2), 0);
+        assertEquals(12.34f, Utils.round(12.344999, 2), 0);
+        assertEquals(Float.floatToIntBits(0f), Float.floatToIntBits(Utils.round(-0.001, 2)));
+    }
+
+    @Test
+    public void testRoundMatchesBigDecimal() {
+        Random random = new Random(1234);
+        for (int i = 0; i < 200000; i++) {
+            int places = random.nextInt(5);
+            double d;
+            switch (i % 4) {
+            case 0:
+                d = random.nextDouble() * 2000 - 1000;
+                break;
+            case 1: // values with few decimals, many of them ties
+                d = (random.nextInt(2000000) - 1000000) / 1000.0;
+                break;
+            case 2: // binary fractions, as found in PDF coordinates
+                d = random.nextInt(80000) / 16.0;
+                break;
+            default:
+                d = (float) (random.nextDouble() * 1000);
+            }
+            float expected = Utils.roundBigDecimal(d, places);
+            assertEquals(d + " to " + places + " places",
+                    Float.floatToIntBits(expected), Float.floatToIntBits(Utils.round(d, places)));
+        }
+    }
+
+    @Test
+    public void testRoundLargeTiesMatchBigDecimal() {
+        assertEquals(Utils.roundBigDecimal(144504.145, 2), Utils.round(144504.145, 2), 0);
+        assertEquals(Utils.roundBigDecimal(1024.00905, 4), Utils.round(1024.00905, 4), 0);
+
+        // decimal ties, and their neighbours, whose scaled value is between 1e6
+        // and 2^24, where the error of scaling is largest
+        Random random = new Random(4321);
+        for (int i = 0; i < 200000; i++) {
+            int places = random.nextInt(5);
+            double pow10 = Math.pow(10, places + 1);
+            long scaled = 1000000 + random.nextInt(15000000);
+            double d = (scaled * 10 + 5) / pow10;
+            if (i % 2 == 1) {
+                d = Double.longBitsToDouble(Double.doubleToLongBits(d) + random.nextInt(9) - 4);
+            }
+            if (random.nextBoolean()) {
+                d = -d;
+            }
+            float expected = Utils.roundBigDecimal(d, places);
+            assertEquals(d + " to " + places + " places",
+                    Float.floatToIntBits(expected), Float.floatToIntBits(Utils.round(d, places)));
+        }
+    }
+
     @Test
     public void testQuickSortEmptyList() {
     	List<Integer> numbers = new ArrayList<Integer>();
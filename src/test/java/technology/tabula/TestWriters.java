@@ -2,17 +2,31 @@ package technology.tabula;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import org.junit.Assume;
 import org.junit.Test;
 
 import technology.tabula.extractors.BasicExtractionAlgorithm;
 import technology.tabula.extractors.SpreadsheetExtractionAlgorithm;
+import technology.tabula.json.TableSerializer;
+import technology.tabula.writers.ArrowWriter;
 import technology.tabula.writers.CSVWriter;
 import technology.tabula.writers.JSONWriter;
 import technology.tabula.writers.TSVWriter;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
 public class TestWriters {
     
     private static final String EXPECTED_CSV_WRITER_OUTPUT = "\"ABDALA de MATARAZZO, Norma Amanda \",\"Frente Cívico por Santiago \",\"Santiago del Estero \",AFIRMATIVO";
@@ -39,6 +53,43 @@ public class TestWriters {
         assertEquals(lines[0], EXPECTED_CSV_WRITER_OUTPUT);
     }
     
+    private static Table getTableOfTexts(String... texts) {
+        Table table = new Table();
+        for (int i = 0; i < texts.length; i++) {
+            Cell cell = new Cell(0, i * 10, 10, 10);
+            List<TextChunk> chunks = new ArrayList<TextChunk>();
+            if (texts[i].length() > 0) {
+                chunks.add(new TextChunk(new TextElement(0, i * 10, 10, 10, null, 10, texts[i], 2)));
+            }
+            cell.setTextElements(chunks);
+            table.add(cell, 0, i);
+        }
+        return table;
+    }
+
+    @Test
+    public void testCSVWriterQuotesAsCSVFormat() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        (new CSVWriter()).write(sb, getTableOfTexts("#1", "a,b", "say \"hi\"", "plain", "", "-2"));
+        assertEquals("\"#1\",\"a,b\",\"say \"\"hi\"\"\",plain,,-2\r\n", sb.toString());
+
+        sb = new StringBuilder();
+        (new TSVWriter()).write(sb, getTableOfTexts("", "a,b", "x\ty"));
+        assertEquals("\"\"\ta,b\t\"x\ty\"\r\n", sb.toString());
+    }
+
+    @Test
+    public void testCSVWriterLeadingFields() throws IOException {
+        // the cells aren't first in the record anymore
+        StringBuilder sb = new StringBuilder();
+        (new CSVWriter()).write(sb, getTableOfTexts("", "-1"), new String[] { "in/a,b.pdf", "2" });
+        assertEquals("\"in/a,b.pdf\",2,,-1\r\n", sb.toString());
+
+        sb = new StringBuilder();
+        (new TSVWriter()).write(sb, getTableOfTexts("x"), new String[] { "#1.pdf", "2" });
+        assertEquals("\"#1.pdf\"\t2\tx\r\n", sb.toString());
+    }
+
     // TODO Add assertions
     @Test
     public void testTSVWriter() throws IOException {
@@ -84,5 +135,298 @@ public class TestWriters {
         assertEquals(expectedJson, s);
     }
     
+    @Test
+    public void testTableSerializerMatchesJSONWriter() throws IOException {
+        Table table = getTableOfTexts("a", "<b>", "Frente Cívico", "");
+        table.setExtractionAlgorithm(new BasicExtractionAlgorithm());
+        Gson gson = new GsonBuilder().registerTypeAdapter(Table.class, new TableSerializer()).create();
+        StringBuilder sb = new StringBuilder();
+        (new JSONWriter()).write(sb, table);
+        assertEquals(sb.toString(), gson.toJson(table, Table.class));
+    }
+
+    @Test
+    public void testJSONWriterLineDelimited() throws IOException {
+        List<Table> tables = this.getTables();
+        StringBuilder sb = new StringBuilder();
+        (new JSONWriter(true)).write(sb, tables);
+        String[] lines = sb.toString().split("\n");
+        assertEquals(tables.size(), lines.length);
+        for (int i = 0; i < tables.size(); i++) {
+            StringBuilder expected = new StringBuilder();
+            (new JSONWriter()).write(expected, tables.get(i));
+            assertEquals(expected.toString(), lines[i]);
+        }
+    }
+
+    @Test
+    public void testArrowWriter() throws IOException {
+        Table table = this.getTable();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArrowWriter writer = new ArrowWriter(out, 100);
+        writer.write(table);
+        writer.close();
+        byte[] bytes = out.toByteArray();
+
+        // messages and their bodies are padded to 8 bytes
+        assertEquals(0, bytes.length % 8);
+        // the schema message starts with the continuation marker
+        for (int i = 0; i < 4; i++) {
+            assertEquals((byte) 0xFF, bytes[i]);
+        }
+        // and the stream ends with an empty message
+        for (int i = bytes.length - 8; i < bytes.length; i++) {
+            assertEquals(i < bytes.length - 4 ? (byte) 0xFF : 0, bytes[i]);
+        }
+        String s = new String(bytes, "UTF-8");
+        assertTrue(s.contains("extraction_method"));
+        assertTrue(s.contains(table.getRows().get(0).get(0).getText()));
+    }
+
+    private static final String[] ARROW_NAMES = { "page", "table", "extraction_method",
+        "table_top", "table_left", "table_width", "table_height",
+        "row", "col", "top", "left", "width", "height", "text" };
+    // Int, FloatingPoint or Utf8 of Schema.fbs
+    private static final byte INT = 2, FLOATING_POINT = 3, UTF8 = 5;
+    private static final byte[] ARROW_TYPES = { INT, INT, UTF8,
+        FLOATING_POINT, FLOATING_POINT, FLOATING_POINT, FLOATING_POINT,
+        INT, INT, FLOATING_POINT, FLOATING_POINT, FLOATING_POINT, FLOATING_POINT, UTF8 };
+
+    // the rows of the cells of getArrowTable(), as ArrowWriter writes them
+    private static List<List<Object>> arrowRows(Table table) {
+        List<List<Object>> rv = new ArrayList<List<Object>>();
+        List<RectangularTextContainer> row = table.getRows().get(0);
+        for (int j = 0; j < row.size(); j++) {
+            RectangularTextContainer cell = row.get(j);
+            rv.add(Arrays.<Object>asList(0, 0, table.getExtractionAlgorithm().toString(),
+                    table.getTop(), table.getLeft(), (float) table.getWidth(), (float) table.getHeight(),
+                    0, j, cell.getTop(), cell.getLeft(), (float) cell.getWidth(), (float) cell.getHeight(),
+                    cell.getText()));
+        }
+        return rv;
+    }
+
+    // a row of 4 cells 10 wide, with non-ASCII text; write_arrow_fixture.py
+    // writes the same rows with pyarrow
+    private static Table getArrowTable() {
+        Table table = getTableOfTexts("a", "Frente Cívico", "", "€ 1,5");
+        table.setExtractionAlgorithm(new BasicExtractionAlgorithm());
+        return table;
+    }
+
+    @Test
+    public void testArrowWriterReadsBack() throws IOException {
+        Table table = getArrowTable();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // batches of 3 and 1 rows
+        ArrowWriter writer = new ArrowWriter(out, 3);
+        writer.write(table);
+        writer.close();
+
+        ArrowStream stream = new ArrowStream(out.toByteArray());
+        assertArrayEquals(ARROW_NAMES, stream.names.toArray());
+        assertArrayEquals(ARROW_TYPES, stream.types);
+        assertEquals(Arrays.asList(3, 1), stream.batchLengths);
+        assertEquals(arrowRows(table), stream.rows);
+        assertEquals("Frente Cívico", stream.rows.get(1).get(13));
+    }
+
+    @Test
+    public void testArrowWriterMatchesPyarrow() throws IOException {
+        // written by pyarrow, the reference this writer and ArrowStream are checked against
+        File fixture = new File("src/test/resources/technology/tabula/arrow/cells.arrow");
+        Assume.assumeTrue(fixture.exists());
+        byte[] expected = new byte[(int) fixture.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(fixture));
+        try {
+            in.readFully(expected);
+        } finally {
+            in.close();
+        }
+        ArrowStream reference = new ArrowStream(expected);
+        Table table = getArrowTable();
+        assertEquals(arrowRows(table), reference.rows);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArrowWriter writer = new ArrowWriter(out, 3);
+        writer.write(table);
+        writer.close();
+        ArrowStream written = new ArrowStream(out.toByteArray());
+        assertEquals(reference.names, written.names);
+        assertArrayEquals(reference.types, written.types);
+        assertEquals(reference.nullable, written.nullable);
+        assertEquals(reference.batchLengths, written.batchLengths);
+        assertEquals(reference.rows, written.rows);
+    }
+
+    /**
+     * Reads an Arrow IPC stream of int32, float32 and utf8 columns without
+     * nulls, checking its framing and the lengths of its buffers. Fields with
+     * their default value may be left out of the metadata, as FlatBuffers
+     * builders do.
+     */
+    private static class ArrowStream {
+        final List<String> names = new ArrayList<String>();
+        byte[] types;
+        final List<Boolean> nullable = new ArrayList<Boolean>();
+        final List<Integer> batchLengths = new ArrayList<Integer>();
+        final List<List<Object>> rows = new ArrayList<List<Object>>();
+
+        ArrowStream(byte[] bytes) throws IOException {
+            ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+            int schema = readMessage(in, 1);
+            assertEquals(0, getLong(in, schema, 3));
+            int fields = child(in, child(in, schema, 2), 1);
+            int n = in.getInt(fields);
+            this.types = new byte[n];
+            for (int i = 0; i < n; i++) {
+                int field = offset(in, fields + 4 + 4 * i);
+                this.names.add(string(in, child(in, field, 0)));
+                this.nullable.add(getByte(in, field, 1) != 0);
+                this.types[i] = getByte(in, field, 2);
+                int type = child(in, field, 3);
+                if (this.types[i] == INT) {
+                    assertEquals(32, getInt(in, type, 0));
+                    assertEquals(1, getByte(in, type, 1));
+                }
+                else if (this.types[i] == FLOATING_POINT) {
+                    // SINGLE
+                    assertEquals(1, getShort(in, type, 0));
+                }
+                else {
+                    assertEquals(UTF8, this.types[i]);
+                }
+            }
+
+            // record batches until the end of stream marker
+            while (in.getInt(in.position() + 4) != 0) {
+                int message = readMessage(in, 3);
+                long bodyLength = getLong(in, message, 3);
+                int body = in.position();
+                int batch = child(in, message, 2);
+                int length = (int) getLong(in, batch, 0);
+                this.batchLengths.add(length);
+                int nodes = child(in, batch, 1), buffers = child(in, batch, 2);
+                assertEquals(n, in.getInt(nodes));
+                for (int i = 0; i < n; i++) {
+                    assertEquals(length, in.getLong(nodes + 4 + 16 * i));
+                    assertEquals(0, in.getLong(nodes + 4 + 16 * i + 8));
+                }
+
+                int first = this.rows.size();
+                for (int r = 0; r < length; r++) {
+                    this.rows.add(new ArrayList<Object>());
+                }
+                int b = buffers + 4;
+                long end = 0;
+                for (int i = 0; i < n; i++) {
+                    // no nulls, so an empty validity buffer
+                    assertEquals(0, in.getLong(b + 8));
+                    b += 16;
+                    int values = body + (int) in.getLong(b);
+                    assertEquals(this.types[i] == UTF8 ? 4 * (length + 1) : 4 * length, in.getLong(b + 8));
+                    end = in.getLong(b) + in.getLong(b + 8);
+                    b += 16;
+                    int data = 0;
+                    if (this.types[i] == UTF8) {
+                        data = body + (int) in.getLong(b);
+                        end = in.getLong(b) + in.getLong(b + 8);
+                        b += 16;
+                    }
+                    for (int r = 0; r < length; r++) {
+                        List<Object> row = this.rows.get(first + r);
+                        if (this.types[i] == INT) {
+                            row.add(in.getInt(values + 4 * r));
+                        }
+                        else if (this.types[i] == FLOATING_POINT) {
+                            row.add(in.getFloat(values + 4 * r));
+                        }
+                        else {
+                            int start = in.getInt(values + 4 * r), stop = in.getInt(values + 4 * r + 4);
+                            byte[] utf8 = new byte[stop - start];
+                            for (int k = 0; k < utf8.length; k++) {
+                                utf8[k] = in.get(data + start + k);
+                            }
+                            row.add(new String(utf8, "UTF-8"));
+                        }
+                    }
+                }
+                // the body is padded to 8 bytes
+                assertTrue(end <= bodyLength && bodyLength - end < 8);
+                in.position(body + (int) bodyLength);
+            }
+            // end of stream
+            assertEquals(0xFFFFFFFF, in.getInt());
+            assertEquals(0, in.getInt());
+            assertEquals(0, in.remaining());
+        }
+
+        // reads an encapsulated message of headerType, and returns its Message
+        // table; the buffer is left at the start of the body
+        private static int readMessage(ByteBuffer in, int headerType) {
+            assertEquals(0xFFFFFFFF, in.getInt());
+            int length = in.getInt();
+            assertEquals(0, (in.position() + length) % 8);
+            int start = in.position();
+            int message = offset(in, start);
+            // V5
+            assertEquals(4, getShort(in, message, 0));
+            assertEquals(headerType, getByte(in, message, 1));
+            in.position(start + length);
+            return message;
+        }
+
+        // the position of the index-th field of the FlatBuffers table at
+        // position table, 0 if it's left out
+        private static int field(ByteBuffer in, int table, int index) {
+            int vtable = table - in.getInt(table);
+            if (4 + 2 * index >= in.getShort(vtable)) {
+                return 0;
+            }
+            int offset = in.getShort(vtable + 4 + 2 * index);
+            return offset == 0 ? 0 : table + offset;
+        }
+
+        // the table, vector or string the index-th field points to
+        private static int child(ByteBuffer in, int table, int index) {
+            int field = field(in, table, index);
+            assertTrue(field != 0);
+            return offset(in, field);
+        }
+
+        // scalars, 0 (the default of all of them here) if left out
+        private static byte getByte(ByteBuffer in, int table, int index) {
+            int field = field(in, table, index);
+            return field == 0 ? 0 : in.get(field);
+        }
+
+        private static short getShort(ByteBuffer in, int table, int index) {
+            int field = field(in, table, index);
+            return field == 0 ? 0 : in.getShort(field);
+        }
+
+        private static int getInt(ByteBuffer in, int table, int index) {
+            int field = field(in, table, index);
+            return field == 0 ? 0 : in.getInt(field);
+        }
+
+        private static long getLong(ByteBuffer in, int table, int index) {
+            int field = field(in, table, index);
+            return field == 0 ? 0 : in.getLong(field);
+        }
+
+        private static int offset(ByteBuffer in, int position) {
+            return position + in.getInt(position);
+        }
+
+        private static String string(ByteBuffer in, int position) throws IOException {
+            byte[] utf8 = new byte[in.getInt(position)];
+            for (int i = 0; i < utf8.length; i++) {
+                utf8[i] = in.get(position + 4 + i);
+            }
+            return new String(utf8, "UTF-8");
+        }
+    }
 
 }
@@ -50,6 +50,19 @@ public class UtilsForTesting {
         }
     }
     
+    public static String[][] tableToArrayOfRows(Table table) {
+        List<List<RectangularTextContainer>> rows = table.getRows();
+        String[][] rv = new String[rows.size()][];
+        for (int i = 0; i < rows.size(); i++) {
+            List<RectangularTextContainer> row = rows.get(i);
+            rv[i] = new String[row.size()];
+            for (int j = 0; j < row.size(); j++) {
+                rv[i][j] = row.get(j).getText();
+            }
+        }
+        return rv;
+    }
+    
     public static String loadJson(String path) throws IOException {
     	
     	BufferedReader reader = new BufferedReader( new FileReader (path));
@@ -0,0 +1,42 @@
+# Writes cells.arrow, the stream TestWriters.testArrowWriterMatchesPyarrow
+# compares ArrowWriter with: the cells of TestWriters.getArrowTable(), in
+# record batches of 3 and 1 rows.
+#
+#   python write_fixture.py   (with pyarrow installed)
+
+import os
+
+import pyarrow as pa
+
+INT = ["page", "table", "row", "col"]
+NAMES = ["page", "table", "extraction_method",
+         "table_top", "table_left", "table_width", "table_height",
+         "row", "col", "top", "left", "width", "height", "text"]
+
+
+def field(name):
+    if name in INT:
+        return pa.field(name, pa.int32(), nullable=False)
+    if name in ("extraction_method", "text"):
+        return pa.field(name, pa.utf8(), nullable=False)
+    return pa.field(name, pa.float32(), nullable=False)
+
+
+schema = pa.schema([field(name) for name in NAMES])
+
+texts = [u"a", u"Frente Cívico", u"", u"€ 1,5"]
+rows = [[0, 0, u"basic", 0.0, 0.0, 40.0, 10.0, 0, j, 0.0, 10.0 * j, 10.0, 10.0, text]
+        for j, text in enumerate(texts)]
+
+
+def batch(rows):
+    columns = [pa.array([row[i] for row in rows], type=schema.field(i).type)
+               for i in range(len(NAMES))]
+    return pa.RecordBatch.from_arrays(columns, schema=schema)
+
+
+path = os.path.join(os.path.dirname(os.path.abspath(__file__)), "cells.arrow")
+with pa.OSFile(path, "wb") as sink:
+    with pa.ipc.new_stream(sink, schema) as writer:
+        writer.write_batch(batch(rows[:3]))
+        writer.write_batch(batch(rows[3:]))